@@ -1,10 +1,10 @@
 package jp.onetake.sample.widget;
 
-import android.graphics.BitmapFactory;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 
 import jp.onetake.widget.HorizontalPicker;
+import jp.onetake.widget.PickerImageSource;
 import jp.onetake.widget.RecyclerHorizontalPicker;
 import jp.onetake.widget.RecyclerHorizontalPickerAdapter;
 
@@ -19,7 +19,7 @@ public class MainActivity extends AppCompatActivity {
 			if (i % 2 == 0) {
 				adapter.add("NO." + i);
 			} else {
-				adapter.add(BitmapFactory.decodeResource(getResources(), R.mipmap.ic_launcher));
+				adapter.add(PickerImageSource.fromResource(getResources(), R.mipmap.ic_launcher));
 			}
 		}
 		
@@ -30,7 +30,7 @@ public class MainActivity extends AppCompatActivity {
 		RecyclerHorizontalPickerAdapter rAdapter = new RecyclerHorizontalPickerAdapter(this);
 		for (int i = 0 ; i < 20 ; i++) {
 			if (i % 2 == 0) {
-				rAdapter.add(BitmapFactory.decodeResource(getResources(), R.mipmap.ic_launcher_round));
+				rAdapter.add(PickerImageSource.fromResource(getResources(), R.mipmap.ic_launcher_round));
 			} else {
 				rAdapter.add("VER." + i);
 			}
@@ -0,0 +1,33 @@
+package jp.onetake.widget;
+
+import android.os.Process;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ピッカーの裏で読み込みやデコードを行うワーカースレッドを作るファクトリ<br />
+ * UIスレッドの邪魔をしないよう優先度をTHREAD_PRIORITY_BACKGROUNDに下げ、アプリの終了を妨げないようデーモンスレッドにする
+ */
+class BackgroundThreadFactory implements ThreadFactory {
+	private final String mName;
+	
+	/**
+	 * @param name	作るスレッドの名前
+	 */
+	BackgroundThreadFactory(String name) {
+		mName = name;
+	}
+	
+	@Override
+	public Thread newThread(final Runnable runnable) {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				runnable.run();
+			}
+		}, mName);
+		thread.setDaemon(true);
+		return thread;
+	}
+}
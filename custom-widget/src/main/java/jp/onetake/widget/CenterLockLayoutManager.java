@@ -0,0 +1,250 @@
+package jp.onetake.widget;
+
+import android.graphics.PointF;
+import android.support.v7.widget.LinearSmoothScroller;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 同じ幅の項目を、中央を基準に横に並べるLayoutManager<br />
+ * 項目の幅がすべて同じなので、スクロール量から中央の項目の位置や各項目の座標、スナップまでの距離をすべて計算で求められる。
+ * 画面に入っている項目だけを配置し、中央からの距離に応じて項目を縮小・半透明にする処理も配置のついでに行う<br />
+ * スクロール量は先頭の項目が中央にあるときを0とし、循環モードの非常に大きな位置でも溢れないようlongで持つ
+ */
+class CenterLockLayoutManager extends RecyclerView.LayoutManager implements RecyclerView.SmoothScroller.ScrollVectorProvider {
+	private int mItemWidth;
+	private long mScrollOffset;		// 先頭の項目が中央にあるときを0とした、スクロール量(px)
+	private int mPendingPosition;	// 次の配置で中央に置く位置。なければNO_POSITION
+	private float mScaleFalloff;	// 中央から項目1つ分離れるごとに縮小する割合
+	private float mAlphaFalloff;	// 中央から項目1つ分離れるごとに透明にする割合
+	
+	CenterLockLayoutManager(int itemWidth) {
+		mItemWidth = itemWidth;
+		mPendingPosition = RecyclerView.NO_POSITION;
+		
+		setAutoMeasureEnabled(true);
+	}
+	
+	void setItemWidth(int itemWidth) {
+		mItemWidth = itemWidth;
+		requestLayout();
+	}
+	
+	/**
+	 * 中央から離れた項目を縮小・半透明にする割合をセットする。0なら変化させない
+	 * @param scaleFalloff	中央から項目1つ分離れるごとに縮小する割合
+	 * @param alphaFalloff	中央から項目1つ分離れるごとに透明にする割合
+	 */
+	void setFalloff(float scaleFalloff, float alphaFalloff) {
+		mScaleFalloff = scaleFalloff;
+		mAlphaFalloff = alphaFalloff;
+		requestLayout();
+	}
+	
+	/**
+	 * @return	先頭の項目が中央にあるときを0とした、スクロール量(px)
+	 */
+	long getScrollOffset() {
+		return mScrollOffset;
+	}
+	
+	/**
+	 * @return	中央に最も近い項目の位置
+	 */
+	int getCenterPosition() {
+		return (int)((mScrollOffset + mItemWidth / 2) / mItemWidth);
+	}
+	
+	/**
+	 * @return	中央に最も近い項目がぴったり中央に来るまでのスクロール量。0なら中央に収まっている
+	 */
+	int getDistanceToCenter() {
+		return (int)((long)getCenterPosition() * mItemWidth - mScrollOffset);
+	}
+	
+	@Override
+	public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+		return new RecyclerView.LayoutParams(mItemWidth, ViewGroup.LayoutParams.MATCH_PARENT);
+	}
+	
+	@Override
+	public boolean canScrollHorizontally() {
+		return true;
+	}
+	
+	// スクロール位置をRecyclerViewに伝える。canScrollHorizontallyで親のViewGroupに横のドラッグを取られないようにするのと、
+	// スクロールバーやアクセシビリティのスクロール操作に使われる
+	// 範囲は先頭と末尾の項目が中央に来るところまでで、循環モードでintに収まらない場合は同じ比率で縮める
+	
+	@Override
+	public int computeHorizontalScrollOffset(RecyclerView.State state) {
+		return (getChildCount() == 0) ? 0 : (int)(mScrollOffset / getScrollScale());
+	}
+	
+	@Override
+	public int computeHorizontalScrollExtent(RecyclerView.State state) {
+		return (getChildCount() == 0) ? 0 : (int)(getWidth() / getScrollScale());
+	}
+	
+	@Override
+	public int computeHorizontalScrollRange(RecyclerView.State state) {
+		return (getChildCount() == 0) ? 0 : (int)(getScrollRange() / getScrollScale());
+	}
+	
+	private long getScrollRange() {
+		return (long)Math.max(0, getItemCount() - 1) * mItemWidth + getWidth();
+	}
+	
+	private long getScrollScale() {
+		return getScrollRange() / Integer.MAX_VALUE + 1;
+	}
+	
+	@Override
+	public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+		if (getItemCount() == 0) {
+			removeAndRecycleAllViews(recycler);
+			mScrollOffset = 0;
+			return;
+		}
+		
+		if (mPendingPosition != RecyclerView.NO_POSITION) {
+			mScrollOffset = (long)mPendingPosition * mItemWidth;
+			mPendingPosition = RecyclerView.NO_POSITION;
+		}
+		mScrollOffset = clampOffset(mScrollOffset);
+		
+		detachAndScrapAttachedViews(recycler);
+		fill(recycler);
+	}
+	
+	@Override
+	public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+		if (getChildCount() == 0 || dx == 0) {
+			return 0;
+		}
+		
+		long offset = clampOffset(mScrollOffset + dx);
+		int consumed = (int)(offset - mScrollOffset);
+		mScrollOffset = offset;
+		
+		fill(recycler);
+		
+		return consumed;
+	}
+	
+	@Override
+	public void scrollToPosition(int position) {
+		// 中央に置いたときのスクロール量は計算で求まるので、次の配置でそこに合わせるだけ
+		mPendingPosition = position;
+		requestLayout();
+	}
+	
+	@Override
+	public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
+		LinearSmoothScroller scroller = new LinearSmoothScroller(recyclerView.getContext()) {
+			@Override
+			public int calculateDtToFit(int viewStart, int viewEnd, int boxStart, int boxEnd, int snapPreference) {
+				// 端に合わせるのではなく、項目の中央を画面の中央に合わせる
+				return (boxStart + (boxEnd - boxStart) / 2) - (viewStart + (viewEnd - viewStart) / 2);
+			}
+		};
+		scroller.setTargetPosition(position);
+		startSmoothScroll(scroller);
+	}
+	
+	@Override
+	public PointF computeScrollVectorForPosition(int targetPosition) {
+		if (getChildCount() == 0) {
+			return null;
+		}
+		return new PointF(((long)targetPosition * mItemWidth < mScrollOffset) ? -1.0f : 1.0f, 0.0f);
+	}
+	
+	@Override
+	public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+		if (getChildCount() == 0 || dx == 0) {
+			return;
+		}
+		
+		// 慣性スクロール中に、次に画面に入ってくる項目を先に用意させる
+		int position = (dx > 0) ? getPosition(getChildAt(getChildCount() - 1)) + 1 : getPosition(getChildAt(0)) - 1;
+		if (position < 0 || position >= getItemCount()) {
+			return;
+		}
+		
+		int left = getItemLeft(position);
+		int distance = (dx > 0) ? left - getWidth() : -(left + mItemWidth);
+		layoutPrefetchRegistry.addPosition(position, Math.max(0, distance));
+	}
+	
+	@Override
+	public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+		super.onDetachedFromWindow(view, recycler);
+		
+		// プールを共有している他のピッカーが使えるよう、画面から外れたら子のViewHolderを返す
+		removeAndRecycleAllViews(recycler);
+	}
+	
+	private long clampOffset(long offset) {
+		long maxOffset = (long)Math.max(0, getItemCount() - 1) * mItemWidth;
+		return Math.max(0L, Math.min(maxOffset, offset));
+	}
+	
+	private int getItemLeft(int position) {
+		return (int)(getWidth() / 2 + (long)position * mItemWidth - mScrollOffset) - mItemWidth / 2;
+	}
+	
+	/**
+	 * 画面に入っている項目だけが子として並ぶようにし、すべての子を現在のスクロール量に合わせて配置する
+	 */
+	private void fill(RecyclerView.Recycler recycler) {
+		// 両端に1つずつ余分に置き、画面の端で項目が欠けないようにする
+		long halfWidth = getWidth() / 2;
+		int first = (int)Math.max(0L, (mScrollOffset - halfWidth) / mItemWidth - 1);
+		int last = (int)Math.min(getItemCount() - 1, (mScrollOffset + halfWidth) / mItemWidth + 1);
+		
+		for (int i = getChildCount() - 1 ; i >= 0 ; i--) {
+			View child = getChildAt(i);
+			int position = getPosition(child);
+			if (position < first || position > last) {
+				removeAndRecycleView(child, recycler);
+			}
+		}
+		
+		// 子はいつも位置の順に連続して並んでいるので、足りない分を前後に足す
+		int childFirst = (getChildCount() > 0) ? getPosition(getChildAt(0)) : Integer.MAX_VALUE;
+		int childLast = (getChildCount() > 0) ? getPosition(getChildAt(getChildCount() - 1)) : Integer.MIN_VALUE;
+		for (int position = first ; position <= last ; position++) {
+			if (position >= childFirst && position <= childLast) {
+				continue;
+			}
+			
+			View view = recycler.getViewForPosition(position);
+			if (position < childFirst) {
+				addView(view, position - first);
+			} else {
+				addView(view);
+			}
+			measureChildWithMargins(view, 0, 0);
+		}
+		
+		for (int i = 0 ; i < getChildCount() ; i++) {
+			layoutChild(getChildAt(i));
+		}
+	}
+	
+	private void layoutChild(View child) {
+		int position = getPosition(child);
+		int left = getItemLeft(position);
+		int top = getPaddingTop();
+		layoutDecorated(child, left, top, left + getDecoratedMeasuredWidth(child), top + getDecoratedMeasuredHeight(child));
+		
+		// 割合が0でも必ずセットし、前に縮小したままのViewや、共有のプールから来た他のピッカーのViewを元に戻す
+		float distance = Math.abs((long)position * mItemWidth - mScrollOffset) / (float)mItemWidth;
+		float scale = Math.max(0.0f, 1.0f - distance * mScaleFalloff);
+		child.setScaleX(scale);
+		child.setScaleY(scale);
+		child.setAlpha(Math.max(0.0f, 1.0f - distance * mAlphaFalloff));
+	}
+}
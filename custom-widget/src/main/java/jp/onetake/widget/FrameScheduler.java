@@ -0,0 +1,36 @@
+package jp.onetake.widget;
+
+import android.view.Choreographer;
+
+/**
+ * フレームコールバックの登録先<br />
+ * 通常はChoreographerにそのまま登録するが、WheelGroupに属するホイールではグループの1つのコールバックにまとめられる
+ */
+interface FrameScheduler {
+	/**
+	 * 次のフレームでcallbackが呼ばれるようにする
+	 * @param callback	フレームごとに呼び出すコールバック
+	 */
+	void postFrameCallback(Choreographer.FrameCallback callback);
+	
+	/**
+	 * 登録済みのcallbackを取り消す
+	 * @param callback	取り消すコールバック
+	 */
+	void removeFrameCallback(Choreographer.FrameCallback callback);
+	
+	/**
+	 * Choreographerにそのまま登録するスケジューラ
+	 */
+	FrameScheduler CHOREOGRAPHER = new FrameScheduler() {
+		@Override
+		public void postFrameCallback(Choreographer.FrameCallback callback) {
+			Choreographer.getInstance().postFrameCallback(callback);
+		}
+		
+		@Override
+		public void removeFrameCallback(Choreographer.FrameCallback callback) {
+			Choreographer.getInstance().removeFrameCallback(callback);
+		}
+	};
+}
@@ -28,9 +28,19 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 		void onSelect(int position);
 	}
 	
+	/**
+	 * スクロール中の位置を、項目の中央どうしの間を補間した小数で通知するリスナ<br />
+	 * 1フレームに1回までしか呼ばれない
+	 */
+	public interface OnPositionChangeListener {
+		void onPositionChanged(float position);
+	}
+	
 	private static class PickerItem {
 		String text;
 		Bitmap bitmap;
+		PickerImageSource image;	// 表示する大きさに合わせて後からデコードする画像
+		int width;		// 項目の幅。0ならピッカーのitem_widthを使う
 	}
 	
 	/**
@@ -54,20 +64,166 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 			add(item);
 		}
 		
+		/**
+		 * 画像の取得元を指定して項目を追加する。画像は表示する大きさに合わせて、表示するときにデコードされる
+		 * @param image	項目に表示する画像の取得元
+		 */
+		@SuppressWarnings("unused")
+		public void add(PickerImageSource image) {
+			add(image, 0);
+		}
+		
+		/**
+		 * 幅と画像の取得元を指定して項目を追加する
+		 * @param image	項目に表示する画像の取得元
+		 * @param width	項目の幅(px)。0ならピッカーのitem_widthを使う
+		 */
+		@SuppressWarnings("unused")
+		public void add(PickerImageSource image, int width) {
+			PickerItem item = new PickerItem();
+			item.image = image;
+			item.width = width;
+			add(item);
+		}
+		
+		/**
+		 * 幅を指定して文字列の項目を追加する。文字列の長さに合わせて項目の幅を変えたい場合に使う
+		 * @param text	項目に表示する文字列
+		 * @param width	項目の幅(px)。0ならピッカーのitem_widthを使う
+		 */
+		@SuppressWarnings("unused")
+		public void add(String text, int width) {
+			PickerItem item = new PickerItem();
+			item.text = text;
+			item.width = width;
+			add(item);
+		}
+		
+		/**
+		 * 幅を指定してBitmapの項目を追加する
+		 * @param bitmap	項目に表示するBitmap
+		 * @param width		項目の幅(px)。0ならピッカーのitem_widthを使う
+		 */
+		@SuppressWarnings("unused")
+		public void add(Bitmap bitmap, int width) {
+			PickerItem item = new PickerItem();
+			item.bitmap = bitmap;
+			item.width = width;
+			add(item);
+		}
+		
 		@SuppressWarnings("unused")
 		public void notifyDataSetChanged() {
 			picker.refresh();
 		}
+		
+		/**
+		 * positionの位置に項目が1つ追加されたことを通知する
+		 * @param position	追加された項目の位置
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemInserted(int position) {
+			notifyItemRangeInserted(position, 1);
+		}
+		
+		/**
+		 * positionStartの位置からitemCount個の項目が追加されたことを通知する<br />
+		 * 追加された項目のViewだけを作り、他の項目のViewやスクロール位置はそのまま残す
+		 * @param positionStart	追加された最初の項目の位置
+		 * @param itemCount		追加された項目の数
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemRangeInserted(int positionStart, int itemCount) {
+			picker.insertItems(positionStart, itemCount);
+		}
+		
+		/**
+		 * positionの位置にあった項目が1つ削除されたことを通知する
+		 * @param position	削除された項目の位置
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemRemoved(int position) {
+			notifyItemRangeRemoved(position, 1);
+		}
+		
+		/**
+		 * positionStartの位置からitemCount個の項目が削除されたことを通知する<br />
+		 * 削除された項目のViewだけを取り除き、他の項目のViewやスクロール位置はそのまま残す
+		 * @param positionStart	削除された最初の項目の位置
+		 * @param itemCount		削除された項目の数
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+			picker.removeItems(positionStart, itemCount);
+		}
+		
+		/**
+		 * positionの位置にある項目の内容が変わったことを通知する
+		 * @param position	内容が変わった項目の位置
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemChanged(int position) {
+			notifyItemRangeChanged(position, 1);
+		}
+		
+		/**
+		 * positionStartの位置からitemCount個の項目の内容が変わったことを通知する<br />
+		 * 該当する項目のViewに内容をセットし直すだけで、Viewは作り直さない
+		 * @param positionStart	内容が変わった最初の項目の位置
+		 * @param itemCount		内容が変わった項目の数
+		 */
+		@SuppressWarnings("unused")
+		public void notifyItemRangeChanged(int positionStart, int itemCount) {
+			picker.changeItems(positionStart, itemCount);
+		}
 	}
 	
+	// 仮想化モードで実体化する範囲を、スクロールに合わせて次のフレームまでに更新する
+	private Runnable mWindowUpdater = new Runnable() {
+		@Override
+		public void run() {
+			mIsWindowUpdatePosted = false;
+			updateWindow();
+		}
+	};
+	
+	// スクロール中の位置を、何度スクロールされても1フレームに1回だけ通知する
+	private Runnable mPositionDispatcher = new Runnable() {
+		@Override
+		public void run() {
+			mIsPositionDispatchPosted = false;
+			dispatchPositionChanged();
+		}
+	};
+	
 	private static final int DEFAULT_PICKER_ITEM_WIDTH	= 120;
+	// 仮想化モードで、画面外の左右それぞれに余分に実体化しておく項目の数
+	private static final int OFFSCREEN_ITEMS			= 2;
 	
 	private HorizontalPickerAdapter mAdapter;
 	private OnSelectListener mListener;
+	private OnPositionChangeListener mPositionListener;
+	private ValueEventStream mEventStream;
+	private PickerItemViewFactory mViewFactory;
 	
+	private ResponsiveHorizontalScrollView mScrollView;
 	private LinearLayout mContentsLayout;
 	private View[] mSideViews;
+	private View mLeftSpace;
+	private View mRightSpace;
 	private int mItemWidth;
+	private PickerItemOffsets mOffsets;			// 各項目の幅と左端の位置
+	private int mPendingPosition;				// レイアウトが済んだらスクロールする位置。なければ-1
+	private int mOverlayItemWidth;				// オーバーレイの間に空けている、中央の項目の幅
+	
+	private boolean mIsVirtualized;				// 画面内とその近くの項目だけを実体化するか
+	private ArrayList<View> mRecycledViews;		// 仮想化モードで、画面外に出て使い回しを待っている項目のView
+	private int mFirstPosition;					// 仮想化モードで、実体化している最初の項目の位置
+	private boolean mIsWindowUpdatePosted;		// 実体化する範囲の更新を予約済みか
+	
+	private boolean mIsPositionDispatchPosted;	// スクロール中の位置の通知を予約済みか
+	private int mCenterPositionHint;			// 前回の通知で中央にあった項目の位置
+	private float mLastPosition;				// 前回通知した位置。同じ位置は通知しない
 	
 	public HorizontalPicker(@NonNull Context context) {
 		this(context, null);
@@ -78,9 +234,9 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 		
 		View view = LayoutInflater.from(context).inflate(R.layout.view_horizontal_picker, this, true);
 		
-		ResponsiveHorizontalScrollView scrollView = (ResponsiveHorizontalScrollView)findViewById(R.id.scroll_area);
-		scrollView.setHorizontalScrollBarEnabled(false);
-		scrollView.setListener(this);
+		mScrollView = (ResponsiveHorizontalScrollView)findViewById(R.id.scroll_area);
+		mScrollView.setHorizontalScrollBarEnabled(false);
+		mScrollView.setListener(this);
 
 		int[] viewIds = new int[] { R.id.view_overlay_left, R.id.view_overlay_right, R.id.view_left_space, R.id.view_right_space };
 		mSideViews = new View[viewIds.length];
@@ -92,9 +248,16 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 			mSideViews[i] = v;
 		}
 		
+		mLeftSpace = view.findViewById(R.id.view_left_space);
+		mRightSpace = view.findViewById(R.id.view_right_space);
 		mContentsLayout = (LinearLayout)view.findViewById(R.id.layout_contents);
 		
 		mItemWidth = DEFAULT_PICKER_ITEM_WIDTH;
+		mOffsets = new PickerItemOffsets();
+		mViewFactory = new PickerItemViewFactory(context);
+		mPendingPosition = -1;
+		mRecycledViews = new ArrayList<>();
+		mLastPosition = Float.NaN;
 		
 		if (attrs != null) {
 			TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.HorizontalPicker);
@@ -103,7 +266,7 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 					R.styleable.HorizontalPicker_item_width, DEFAULT_PICKER_ITEM_WIDTH);
 			
 			int backgroundColor = array.getColor(R.styleable.HorizontalPicker_background_color, Color.WHITE);
-			scrollView.setBackgroundColor(backgroundColor);
+			mScrollView.setBackgroundColor(backgroundColor);
 			
 			if (array.getBoolean(R.styleable.HorizontalPicker_overlay_visible, false)) {
 				int color = array.getColor(R.styleable.HorizontalPicker_overlay_color, backgroundColor);
@@ -116,6 +279,8 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 				}
 			}
 			
+			mIsVirtualized = array.getBoolean(R.styleable.HorizontalPicker_virtualized, false);
+			
 			array.recycle();
 		}
 	}
@@ -138,75 +303,488 @@ public class HorizontalPicker extends FrameLayout implements ResponsiveHorizonta
 		mListener = listener;
 	}
 	
+	/**
+	 * スクロール中の位置を通知するリスナをセットする<br />
+	 * 位置は項目の中央が画面の中央にあるとき整数になり、隣の項目との間は中央どうしの距離で補間した小数になる
+	 * @param listener	スクロール中の位置を通知するリスナ
+	 */
+	@SuppressWarnings("unused")
+	public void setOnPositionChangeListener(OnPositionChangeListener listener) {
+		mPositionListener = listener;
+		mLastPosition = Float.NaN;
+	}
+	
+	/**
+	 * 選択された位置をUIスレッド以外に伝播するためのリングバッファをセットする<br />
+	 * 値を選択するたびに(時刻, 位置, 0)が書き込まれる
+	 * @param stream	選択された位置を書き込むリングバッファ。nullなら書き込まない
+	 */
+	@SuppressWarnings("unused")
+	public void setEventStream(ValueEventStream stream) {
+		mEventStream = stream;
+	}
+	
+	/**
+	 * 項目のViewを作るファクトリをセットする<br />
+	 * 作り溜めておいたViewを使ったり、複数のピッカーで同じファクトリを共有したりする場合に使う。setAdapterより前に呼ぶ
+	 * @param factory	項目のViewを作るファクトリ
+	 */
+	@SuppressWarnings("unused")
+	public void setItemViewFactory(PickerItemViewFactory factory) {
+		mViewFactory = factory;
+	}
+	
+	/**
+	 * positionの位置にある項目が中央に来るようにスクロールする<br />
+	 * まだレイアウトが済んでいなければ、済んだところでスクロールする
+	 * @param position	中央に表示する項目の位置
+	 */
+	@SuppressWarnings("unused")
+	public void scrollToPosition(int position) {
+		if (getWidth() == 0 || isLayoutRequested()) {
+			mPendingPosition = position;
+			return;
+		}
+		
+		mScrollView.scrollTo(getScrollXForPosition(position), 0);
+	}
+	
+	/**
+	 * 画面内とその近くの項目だけを実体化するかをセットする<br />
+	 * trueにすると項目のViewは画面に入る分だけ作られ、スクロールに合わせて使い回される。項目が非常に多い場合に使う
+	 * @param virtualized	画面内とその近くの項目だけを実体化するならtrue
+	 */
+	@SuppressWarnings("unused")
+	public void setVirtualized(boolean virtualized) {
+		if (mIsVirtualized == virtualized) {
+			return;
+		}
+		
+		removeItemViews();
+		mIsVirtualized = virtualized;
+		
+		if (mAdapter != null) {
+			refresh();
+		}
+	}
+	
 	private void refresh() {
-		for (int i = mContentsLayout.getChildCount() - 2; i > 0; i--) {
-			mContentsLayout.removeViewAt(i);
+		removeItemViews();
+		
+		mOffsets.clear();
+		mOffsets.insert(0, mAdapter.size());
+		updateWidths(0, mAdapter.size());
+		
+		if (mIsVirtualized) {
+			// 実体化する範囲は、現在のスクロール位置から決める
+			updateWindow();
+		} else {
+			for (PickerItem item : mAdapter) {
+				addView(item);
+			}
+		}
+	}
+	
+	/**
+	 * 追加された項目のViewだけを作って差し込む<br />
+	 * 仮想化モードでは、実体化している範囲に入る分だけを作り、範囲の外に押し出された分は使い回す
+	 */
+	private void insertItems(int positionStart, int itemCount) {
+		int boundCount = mContentsLayout.getChildCount() - 2;
+		int boundEnd = mFirstPosition + boundCount;
+		
+		mOffsets.insert(positionStart, itemCount);
+		updateWidths(positionStart, itemCount);
+		
+		if (!mIsVirtualized) {
+			for (int i = 0 ; i < itemCount ; i++) {
+				int position = positionStart + i;
+				mContentsLayout.addView(obtainView(position), position + 1);
+			}
+		} else {
+			if (positionStart < mFirstPosition) {
+				// 実体化している項目はすべて後ろにずれるだけ
+				mFirstPosition += itemCount;
+			} else {
+				// 範囲内に入る分だけを差し込み、その分だけ末尾から押し出す
+				int count = Math.min(itemCount, boundEnd - positionStart);
+				for (int i = 0 ; i < count ; i++) {
+					int position = positionStart + i;
+					mContentsLayout.addView(obtainView(position), position - mFirstPosition + 1);
+				}
+				for (int i = 0 ; i < count ; i++) {
+					recycleView(mContentsLayout.getChildCount() - 2);
+				}
+			}
+			
+			updateWindow();
 		}
 		
-		for (PickerItem item : mAdapter) {
-			addView(item);
+		requestLayout();
+	}
+	
+	/**
+	 * 削除された項目のViewだけを取り除く。仮想化モードでは実体化していなかった項目のViewは元からないので何もしない
+	 */
+	private void removeItems(int positionStart, int itemCount) {
+		int boundCount = mContentsLayout.getChildCount() - 2;
+		int positionEnd = positionStart + itemCount;
+		
+		int from = Math.max(positionStart, mFirstPosition);
+		int to = Math.min(positionEnd, mFirstPosition + boundCount);
+		for (int position = to - 1 ; position >= from ; position--) {
+			recycleView(position - mFirstPosition + 1);
+		}
+		
+		mOffsets.remove(positionStart, itemCount);
+		
+		if (mIsVirtualized) {
+			// 実体化している範囲より前で削除された分だけ、範囲が前にずれる
+			mFirstPosition -= Math.max(0, Math.min(positionEnd, mFirstPosition) - positionStart);
+			
+			updateWindow();
+		}
+		
+		requestLayout();
+	}
+	
+	/**
+	 * 内容が変わった項目のうち、Viewがあるものにだけ内容をセットし直す
+	 */
+	private void changeItems(int positionStart, int itemCount) {
+		int boundCount = mContentsLayout.getChildCount() - 2;
+		
+		int from = Math.max(positionStart, mFirstPosition);
+		int to = Math.min(positionStart + itemCount, mFirstPosition + boundCount);
+		for (int position = from ; position < to ; position++) {
+			bindView(mContentsLayout.getChildAt(position - mFirstPosition + 1), mAdapter.get(position));
 		}
+		
+		// 幅が変わっているかもしれないので、後ろの項目の位置も合わせて測り直す
+		updateWidths(positionStart, itemCount);
+		requestLayout();
+	}
+	
+	/**
+	 * positionStartの位置からitemCount個の項目の幅を、アダプタの内容に合わせてインデックスにセットする
+	 */
+	private void updateWidths(int positionStart, int itemCount) {
+		for (int position = positionStart ; position < positionStart + itemCount ; position++) {
+			int width = mAdapter.get(position).width;
+			mOffsets.setWidth(position, (width > 0) ? width : mItemWidth);
+		}
+	}
+	
+	/**
+	 * 両端の項目が中央に来るところまでしかスクロールできないように置く、左側のスペースの幅を返す
+	 */
+	private int getLeftSideWidth(int width) {
+		return (width - ((mOffsets.size() > 0) ? mOffsets.getWidth(0) : mItemWidth)) / 2;
+	}
+	
+	/**
+	 * 両端の項目が中央に来るところまでしかスクロールできないように置く、右側のスペースの幅を返す
+	 */
+	private int getRightSideWidth(int width) {
+		return (width - ((mOffsets.size() > 0) ? mOffsets.getWidth(mOffsets.size() - 1) : mItemWidth)) / 2;
+	}
+	
+	/**
+	 * positionの位置にある項目が中央に来るときのスクロール位置を返す
+	 */
+	private int getScrollXForPosition(int position) {
+		int width = getWidth();
+		return getLeftSideWidth(width) + mOffsets.getOffset(position) + mOffsets.getWidth(position) / 2 - width / 2;
 	}
 	
 	private void addView(PickerItem item) {
-		View view = LayoutInflater.from(getContext()).inflate(R.layout.view_picker_item, this, false);
+		View view = mViewFactory.obtain(mContentsLayout);
+		bindView(view, item);
 		
+		mContentsLayout.addView(view, mContentsLayout.getChildCount() - 1);
+	}
+	
+	private void bindView(View view, PickerItem item) {
+		TextView textView = (TextView)view.findViewById(R.id.textview_item);
+		ImageView imageView = (ImageView)view.findViewById(R.id.imageview_item);
+		
+		// 使い回されたViewには前の項目の内容が残っているので、使わない方は消しておく
+		PickerBitmapCache.getInstance().cancel(imageView);
 		if (item.text != null) {
-			TextView textView = (TextView)view.findViewById(R.id.textview_item);
 			textView.setText(item.text);
 			textView.setVisibility(View.VISIBLE);
+			imageView.setImageBitmap(null);
+			imageView.setVisibility(View.INVISIBLE);
 		} else {
-			ImageView imageView = (ImageView)view.findViewById(R.id.imageview_item);
-			imageView.setImageBitmap(item.bitmap);
+			if (item.image != null) {
+				int width = (item.width > 0) ? item.width : mItemWidth;
+				int height = (getHeight() > 0) ? getHeight() : width;
+				PickerBitmapCache.getInstance().load(item.image, width, height, imageView);
+			} else {
+				imageView.setImageBitmap(item.bitmap);
+			}
 			imageView.setVisibility(View.VISIBLE);
+			textView.setText(null);
+			textView.setVisibility(View.INVISIBLE);
+		}
+	}
+	
+	/**
+	 * 両端のスペースを除くすべての項目のViewを取り除く。仮想化モードでは使い回すために取っておく
+	 */
+	private void removeItemViews() {
+		for (int i = mContentsLayout.getChildCount() - 2; i > 0; i--) {
+			recycleView(i);
+		}
+		mFirstPosition = 0;
+	}
+	
+	private void recycleView(int index) {
+		View view = mContentsLayout.getChildAt(index);
+		mContentsLayout.removeViewAt(index);
+		
+		if (mIsVirtualized) {
+			mRecycledViews.add(view);
+		}
+	}
+	
+	/**
+	 * 仮想化モードで、現在のスクロール位置に合わせて実体化する項目の範囲を更新する<br />
+	 * 範囲から外れた項目のViewは取り除いて使い回し、新たに範囲に入った項目にだけViewを割り当てる
+	 */
+	private void updateWindow() {
+		if (!mIsVirtualized) {
+			return;
 		}
 		
-		mContentsLayout.addView(view, mContentsLayout.getChildCount() - 1);
+		int boundCount = mContentsLayout.getChildCount() - 2;
+		int boundLast = mFirstPosition + boundCount - 1;
+		
+		int first = 0;
+		int last = -1;
+		if (mOffsets.size() > 0) {
+			// 画面の左端と右端にある項目の位置は、オフセットのインデックスから求まる
+			int width = getWidth();
+			int sideWidth = getLeftSideWidth(width);
+			int scrollX = mScrollView.getScrollX();
+			
+			first = Math.max(0, mOffsets.findPosition(scrollX - sideWidth) - OFFSCREEN_ITEMS);
+			last = Math.min(mOffsets.size() - 1, mOffsets.findPosition(scrollX + width - sideWidth) + OFFSCREEN_ITEMS);
+		}
+		
+		if (first == mFirstPosition && last == boundLast) {
+			return;
+		}
+		
+		if (boundCount == 0 || first > boundLast || last < mFirstPosition) {
+			// 重なりがなければすべて入れ替える
+			for (int i = boundCount ; i > 0 ; i--) {
+				recycleView(i);
+			}
+			for (int position = first ; position <= last ; position++) {
+				mContentsLayout.addView(obtainView(position), mContentsLayout.getChildCount() - 1);
+			}
+		} else {
+			// 範囲から外れた分を両端から取り除く
+			for (int position = mFirstPosition ; position < first ; position++) {
+				recycleView(1);
+			}
+			for (int position = boundLast ; position > last ; position--) {
+				recycleView(mContentsLayout.getChildCount() - 2);
+			}
+			
+			// 新たに範囲に入った分を両端に加える
+			for (int position = Math.max(first, mFirstPosition) - 1 ; position >= first ; position--) {
+				mContentsLayout.addView(obtainView(position), 1);
+			}
+			for (int position = Math.min(last, boundLast) + 1 ; position <= last ; position++) {
+				mContentsLayout.addView(obtainView(position), mContentsLayout.getChildCount() - 1);
+			}
+		}
+		
+		mFirstPosition = first;
+		
+		// 左右のスペースの幅が変わるので測り直す
+		requestLayout();
+	}
+	
+	private View obtainView(int position) {
+		View view;
+		if (mRecycledViews.isEmpty()) {
+			view = mViewFactory.obtain(mContentsLayout);
+		} else {
+			view = mRecycledViews.remove(mRecycledViews.size() - 1);
+		}
+		
+		bindView(view, mAdapter.get(position));
+		
+		return view;
+	}
+	
+	private void postWindowUpdate() {
+		if (mIsVirtualized && !mIsWindowUpdatePosted) {
+			mIsWindowUpdatePosted = true;
+			postOnAnimation(mWindowUpdater);
+		}
+	}
+	
+	private void postPositionDispatch() {
+		if (mPositionListener != null && !mIsPositionDispatchPosted) {
+			mIsPositionDispatchPosted = true;
+			postOnAnimation(mPositionDispatcher);
+		}
+	}
+	
+	private void dispatchPositionChanged() {
+		if (mPositionListener == null || mOffsets.size() == 0) {
+			return;
+		}
+		
+		float position = getFractionalPosition();
+		if (position != mLastPosition) {
+			mLastPosition = position;
+			mPositionListener.onPositionChanged(position);
+		}
+	}
+	
+	/**
+	 * 画面の中央にある地点を、項目の中央どうしの間を補間した小数の位置で返す<br />
+	 * スクロール中は前回と同じ項目が中央にあることがほとんどなので、まずその項目に収まっているかを調べ、
+	 * 外れたときだけオフセットのインデックスから探し直す
+	 */
+	private float getFractionalPosition() {
+		int width = getWidth();
+		int x = mScrollView.getScrollX() + width / 2 - getLeftSideWidth(width);
+		int count = mOffsets.size();
+		
+		int position = mCenterPositionHint;
+		if (position >= count || x < mOffsets.getOffset(position) || x >= mOffsets.getOffset(position + 1)) {
+			position = mOffsets.findPosition(x);
+			mCenterPositionHint = position;
+		}
+		
+		// 中央の項目と、中央の地点がある側の隣の項目との間で補間する
+		float center = mOffsets.getOffset(position) + mOffsets.getWidth(position) / 2.0f;
+		int neighbor = (x >= center) ? position + 1 : position - 1;
+		if (neighbor < 0 || neighbor >= count) {
+			return position;
+		}
+		
+		float neighborCenter = mOffsets.getOffset(neighbor) + mOffsets.getWidth(neighbor) / 2.0f;
+		return position + (neighbor - position) * (x - center) / (neighborCenter - center);
+	}
+	
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		
+		postWindowUpdate();
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		
+		removeCallbacks(mWindowUpdater);
+		mIsWindowUpdatePosted = false;
+		removeCallbacks(mPositionDispatcher);
+		mIsPositionDispatchPosted = false;
 	}
 	
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
 		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 		
-		int sideWidth = (MeasureSpec.getSize(widthMeasureSpec) - mItemWidth) / 2;
-		int layoutWidth = sideWidth * 2 + mItemWidth * (mContentsLayout.getChildCount() - 2);
+		int width = MeasureSpec.getSize(widthMeasureSpec);
+		int leftSideWidth = getLeftSideWidth(width);
+		int rightSideWidth = getRightSideWidth(width);
+		int totalWidth = mOffsets.getTotalWidth();
+		int layoutWidth = leftSideWidth + totalWidth + rightSideWidth;
 		
 		mContentsLayout.measure(MeasureSpec.makeMeasureSpec(layoutWidth, MeasureSpec.EXACTLY), heightMeasureSpec);
 		
-		int sideSpec = MeasureSpec.makeMeasureSpec(sideWidth, MeasureSpec.EXACTLY);
+		// オーバーレイは中央の項目だけが見えるよう、その項目の幅を空けて左右を覆う
+		mOverlayItemWidth = getCenterItemWidth();
+		int overlaySpec = MeasureSpec.makeMeasureSpec(Math.max(0, (width - mOverlayItemWidth) / 2), MeasureSpec.EXACTLY);
 		for (View view : mSideViews) {
-			view.measure(sideSpec, heightMeasureSpec);
+			if ((boolean)view.getTag()) {
+				view.measure(overlaySpec, heightMeasureSpec);
+			}
 		}
 		
-		int itemSpec = MeasureSpec.makeMeasureSpec(mItemWidth, MeasureSpec.EXACTLY);
+		// 仮想化モードでは、実体化していない項目の分だけ左右のスペースを広げて全体のスクロール幅を保つ
+		int boundCount = mContentsLayout.getChildCount() - 2;
+		int leftWidth = leftSideWidth + mOffsets.getOffset(mFirstPosition);
+		int rightWidth = rightSideWidth + totalWidth - mOffsets.getOffset(mFirstPosition + boundCount);
+		
+		mLeftSpace.measure(MeasureSpec.makeMeasureSpec(leftWidth, MeasureSpec.EXACTLY), heightMeasureSpec);
+		mRightSpace.measure(MeasureSpec.makeMeasureSpec(rightWidth, MeasureSpec.EXACTLY), heightMeasureSpec);
+		
 		for (int i = 1 ; i < mContentsLayout.getChildCount() - 1 ; i++) {
 			View item = mContentsLayout.getChildAt(i);
-			item.measure(itemSpec, heightMeasureSpec);
+			int itemWidth = mOffsets.getWidth(mFirstPosition + i - 1);
+			item.measure(MeasureSpec.makeMeasureSpec(itemWidth, MeasureSpec.EXACTLY), heightMeasureSpec);
+		}
+	}
+	
+	/**
+	 * @return	中央にある項目の幅。項目がなければデフォルトの幅
+	 */
+	private int getCenterItemWidth() {
+		int count = mOffsets.size();
+		if (count == 0) {
+			return mItemWidth;
+		}
+		
+		int position = (mPendingPosition >= 0) ? mPendingPosition : mCenterPositionHint;
+		return mOffsets.getWidth(Math.max(0, Math.min(position, count - 1)));
+	}
+	
+	@Override
+	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+		super.onLayout(changed, left, top, right, bottom);
+		
+		if (mPendingPosition >= 0) {
+			int position = Math.min(mPendingPosition, mOffsets.size() - 1);
+			mPendingPosition = -1;
+			
+			if (position >= 0) {
+				mScrollView.scrollTo(getScrollXForPosition(position), 0);
+			}
 		}
 	}
 	
 	@Override
 	public void onScroll(ResponsiveHorizontalScrollView scrollView) {
-		// Do nothing.
+		postWindowUpdate();
+		postPositionDispatch();
 	}
 	
 	@Override
 	public void onScrollEnded(ResponsiveHorizontalScrollView scrollView) {
+		if (mOffsets.size() == 0) {
+			return;
+		}
+		
+		// 中央にある項目の位置は、子Viewを調べなくてもオフセットのインデックスから求まる
+		int sideWidth = getLeftSideWidth(this.getMeasuredWidth());
 		int centerX = scrollView.getScrollX() + this.getMeasuredWidth() / 2;
+		int position = mOffsets.findPosition(centerX - sideWidth);
 		
-		for (int i = 1; i < mContentsLayout.getChildCount() - 1; i++) {
-			View view = mContentsLayout.getChildAt(i);
-			
-			if (centerX >= view.getX() && centerX < view.getX() + view.getWidth()) {
-				int viewCenterX = (int)view.getX() + mItemWidth / 2;
-				scrollView.smoothScrollBy(viewCenterX - centerX, 0);
-				
-				if (mListener != null) {
-					mListener.onSelect(i - 1);
-				}
-				
-				break;
-			}
+		int viewCenterX = sideWidth + mOffsets.getOffset(position) + mOffsets.getWidth(position) / 2;
+		scrollView.smoothScrollBy(viewCenterX - centerX, 0);
+		
+		// 止まった項目の幅がオーバーレイの間と違えば、オーバーレイを測り直す
+		mCenterPositionHint = position;
+		if (mOffsets.getWidth(position) != mOverlayItemWidth) {
+			requestLayout();
+		}
+		
+		if (mListener != null) {
+			mListener.onSelect(position);
+		}
+		if (mEventStream != null) {
+			mEventStream.offer(System.nanoTime(), position, 0);
 		}
 	}
 }
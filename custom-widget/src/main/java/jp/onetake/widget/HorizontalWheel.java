@@ -1,8 +1,5 @@
 package jp.onetake.widget;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
@@ -10,10 +7,11 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
-import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.DecelerateInterpolator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * 横向きに回転して値を取得するためのホイール
@@ -30,6 +28,28 @@ public class HorizontalWheel extends View {
 		void onAngleChange(double angle);
 	}
 	
+	/**
+	 * ホイールの指す目盛りが変わったことを捕捉するためのリスナ<br />
+	 * DeliveryMode.TickChangeのときだけ呼び出される
+	 */
+	public interface OnTickChangeListener {
+		/**
+		 * ホイールの指す角度から最も近い目盛りが変わったときにその番号を得る
+		 * @param tick	目盛りの番号。角度0の目盛りが0。value_limitedがfalseなら何周回しても丸められない
+		 */
+		void onTickChange(long tick);
+	}
+	
+	/**
+	 * 角度の変化をリスナに通知するタイミング
+	 */
+	public enum DeliveryMode {
+		EveryChange,	// 角度が変わるたびにEventListenerに通知する(デフォルト)
+		PerFrame,		// 1フレームに1回だけ、最新の角度をEventListenerに通知する
+		TickChange,		// 最も近い目盛りが変わったときだけOnTickChangeListenerに通知する
+		Settle,			// ホイールが止まったときだけEventListenerに通知する
+	}
+	
 	/**
 	 * 現在のホイールの状態
 	 */
@@ -39,47 +59,63 @@ public class HorizontalWheel extends View {
 		Inertia,	// 慣性回転アニメーション中
 	}
 	
-	// ValueAnimatorの角度がアップデートされるたびに呼び出されるリスナ
-	private ValueAnimator.AnimatorUpdateListener mAnimationUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
+	// 慣性による回転の進行を受け取るコールバック
+	// 回転は開始時からの移動量で通知されるので、前回からの差分だけ回転させる
+	private InertiaScroller.Callback mInertiaCallback = new InertiaScroller.Callback() {
 		@Override
-		public void onAnimationUpdate(ValueAnimator valueAnimator) {
-			rotateTo((float)valueAnimator.getAnimatedValue());
-		}
-	};
-	
-	// アニメーションが終了した時のイベントを処理するリスナ
-	// 主にValueAnimatorで扱う値と角度(ラジアン)のデータ型がそれぞれfloat、doubleと異なることに起因する不都合に対処するためのクラス
-	private class AnimationEndListener extends AnimatorListenerAdapter {
-		private double mToRadian;
-		
-		AnimationEndListener(double toRadian) {
-			mToRadian = toRadian;
+		public void onInertiaUpdate(double displacement) {
+			double deltaRadian = displacement - mInertiaDisplacement;
+			mInertiaDisplacement = displacement;
+			
+			rotateBy(deltaRadian);
 		}
 		
 		@Override
-		public void onAnimationEnd(Animator animator) {
-			// animatorはValueAnimatorで、扱う値はfloat
-			// 対して角度はラジアンでdoubleなので、厳密にはアニメーションでの終了値が異なる場合がある
-			// もし終了時の角度が目標値と異なる場合はそこに位置を合わせる
-			if (mCurrentRadian != mToRadian) {
-				rotateTo(mToRadian);
+		public void onInertiaEnd(double displacement) {
+			double deltaRadian = displacement - mInertiaDisplacement;
+			mInertiaDisplacement = displacement;
+			
+			if (mIsSnapScale) {
+				// 差分を積み重ねた丸め誤差が残らないよう、目盛りちょうどの位置で止める
+				moveTo(mCurrentTick + getNearestTickOffset(mCurrentFraction + deltaRadian), 0.0);
+			} else {
+				rotateBy(deltaRadian);
 			}
 			
 			mCurrentState = State.Idle;
+			onSettle();
 		}
-	}
+	};
+	
+	private static final int DEFAULT_MAJOR_SCALE_INTERVAL	= 5;
 	
-	private GestureDetector mGestureDetector;	// ジェスチャ検出オブジェクト
-	private double mCurrentRadian;				// 現在の角度
+	private WheelTouchTracker mTouchTracker;	// タッチイベントをドラッグとフリックに変換するオブジェクト
+	private long mCurrentTick;					// 現在の角度のうち、目盛り間の角度で割り切れる部分(目盛りの数)
+	private double mCurrentFraction;			// 現在の角度のうち、目盛り間の角度未満の部分(rad)。常に[0, mIntervalRadian)
 	private double mIntervalRadian;				// 目盛り間の角度
 	private boolean mIsPointerVisible;			// ポインタの可視・不可視
 	private Paint mPointerPaint;				// ポインタの色
 	private Paint mScalePaint;					// 目盛りの色
 	private boolean mIsValueLimited;			// 取得される値は0-360の範囲かどうか
 	private boolean mIsSnapScale;				// ホイール操作が終わった後に最も近い目盛りの値にスナップするか
-	private EventListener mListener;			// ホイールを操作した結果を伝播するためのリスナ
+	private int mScalesNumber;					// 目盛りの数
+	private WheelEventDispatcher mDispatcher;	// ホイールを操作した結果をリスナに伝播するオブジェクト
+	private ValueEventStream mEventStream;		// ホイールを操作した結果をUIスレッド以外に伝播するためのリングバッファ
 	private State mCurrentState;				// 現在の状態
-	private ValueAnimator mInertiaAnimator;		// 慣性による回転アニメーションを実現するアニメーターオブジェクト
+	private InertiaScroller mInertiaScroller;	// 慣性による回転を計算するエンジン
+	private double mInertiaDisplacement;		// 慣性による回転で、開始してからこれまでに回転した量
+	private WheelGroup mGroup;					// 連動して回転するグループ
+	private double mGroupRatio;					// グループ内での回転の比率
+	private WheelScaleGeometry mScaleGeometry;	// 目盛り線の座標のキャッシュ
+	private WheelScaleStrip mScaleStrip;		// 目盛りをラスタライズした帯
+	private boolean mIsRenderStrip;				// 目盛りを帯のビットマップで描画するか
+	private double mReducedDetailVelocity;		// 目盛りを1本おきに間引く角速度(rad/sec)
+	private double mMajorOnlyVelocity;			// 主目盛りだけを描く角速度(rad/sec)
+	private int mMajorScaleInterval;			// 主目盛りの間隔(目盛りの本数)
+	private boolean mHasValueRange;				// 値の範囲が指定されているか
+	private BigDecimal mValueMin;				// 目盛り0に対応する値
+	private BigDecimal mValueStep;				// 目盛り1つあたりの値の増分
+	private long mMaxTick;						// 値の範囲の上限に対応する目盛りの番号
 	
 	public HorizontalWheel(Context context) {
 		this(context, null);
@@ -89,11 +125,12 @@ public class HorizontalWheel extends View {
 	public HorizontalWheel(Context context, @Nullable AttributeSet attrs) {
 		super(context, attrs);
 		
-		mGestureDetector = new GestureDetector(getContext(), new WheelGestureListener(this));
+		mTouchTracker = new WheelTouchTracker(context, this);
 		
 		Resources res = context.getResources();
 		
-		mCurrentRadian = 0.0;
+		mCurrentTick = 0L;
+		mCurrentFraction = 0.0;
 		
 		int scalesNumber = res.getInteger(R.integer.default_scales_number);
 		int pointerColor = res.getColor(R.color.default_pointer_color);
@@ -103,6 +140,7 @@ public class HorizontalWheel extends View {
 		mIsPointerVisible = true;
 		mIsValueLimited = true;
 		mIsSnapScale = false;
+		mIsRenderStrip = false;
 		
 		if (attrs != null) {
 			TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.HorizontalWheel);
@@ -115,10 +153,12 @@ public class HorizontalWheel extends View {
 			mIsPointerVisible = array.getBoolean(R.styleable.HorizontalWheel_pointer_visible, mIsPointerVisible);
 			mIsValueLimited = array.getBoolean(R.styleable.HorizontalWheel_value_limited, mIsValueLimited);
 			mIsSnapScale = array.getBoolean(R.styleable.HorizontalWheel_snap_scale, mIsSnapScale);
+			mIsRenderStrip = array.getBoolean(R.styleable.HorizontalWheel_render_strip, mIsRenderStrip);
 			
 			array.recycle();
 		}
 		
+		mScalesNumber = scalesNumber;
 		mIntervalRadian = 2 * Math.PI / scalesNumber;
 		
 		mPointerPaint = new Paint();
@@ -130,58 +170,263 @@ public class HorizontalWheel extends View {
 		mScalePaint.setStrokeWidth(scaleWidth);
 		
 		mCurrentState = State.Idle;
+		mInertiaScroller = new InertiaScroller(mInertiaCallback);
+		mDispatcher = new WheelEventDispatcher();
+		
+		mScaleGeometry = new WheelScaleGeometry();
+		mScaleStrip = new WheelScaleStrip();
+		
+		// デフォルトでは間引かない
+		mReducedDetailVelocity = Double.POSITIVE_INFINITY;
+		mMajorOnlyVelocity = Double.POSITIVE_INFINITY;
+		mMajorScaleInterval = DEFAULT_MAJOR_SCALE_INTERVAL;
+		
+		mHasValueRange = false;
+		mValueMin = BigDecimal.ZERO;
+		mValueStep = BigDecimal.ONE;
 	}
 	
 	@Override
 	public boolean dispatchTouchEvent(MotionEvent event) {
-		mGestureDetector.onTouchEvent(event);
-		
-		int action = event.getActionMasked();
-		if (mCurrentState != State.Inertia && (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)) {
-			setState(State.Idle);
+		// グループ内の別のホイールが慣性で回っていても、触れたら止める
+		if (mGroup != null && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+			mGroup.cancelInertiaScroll();
 		}
 		
+		mTouchTracker.onTouchEvent(event);
+		
 		return true;
 	}
 	
+	@Override
+	protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+		super.onSizeChanged(w, h, oldw, oldh);
+		
+		mScaleGeometry.invalidate();
+		mScaleStrip.invalidate();
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		
+		cancelInertiaScroll();
+		mDispatcher.cancel();
+		mScaleStrip.release();
+	}
+	
 	@Override
 	protected void onDraw(Canvas canvas) {
 		super.onDraw(canvas);
 		
 		float width = getWidth();
 		float height = getHeight();
-		float verticalMargin = height * 0.1f;
 
 		// 中央線
 		if (mIsPointerVisible) {
 			canvas.drawLine(width / 2.0f, 0.0f, width / 2.0f, height, mPointerPaint);
 		}
 		
-		double radian = (Math.PI * -1 / 2.0) + (mCurrentRadian % mIntervalRadian);
-		while (radian <= Math.PI / 2.0) {
-			double sin = Math.sin(radian);
-			float sx = (float)((width / 2.0) * sin) + (width / 2.0f);
-			if (sx > width) {
-				break;
-			}
-			
-			float sh = (float)(height * (1.0 - Math.abs(sin) * 0.1)) - (verticalMargin + 2.0f);
-			float sy = (height - sh) / 2.0f;
-
-			// 目盛り線
-			canvas.drawLine(sx, sy, sx, sy + sh, mScalePaint);
-			
-			radian += mIntervalRadian;
+		// 目盛り線
+		// 座標のテーブルはサイズか目盛り数、線幅が変わったときだけ作り直され、ここでは三角関数を使わずにまとめて描画する
+		if (mIsRenderStrip) {
+			// 帯のビットマップを歪ませて貼るだけなので、目盛りの数によらず描画コストは一定
+			mScaleStrip.update(getWidth(), getHeight(), mIntervalRadian, mScalePaint);
+			mScaleStrip.draw(canvas, mScaleGeometry);
+		} else {
+			mScaleGeometry.update(width, height, mIntervalRadian);
+			mScaleGeometry.fill(getScaleStride());
+			mScaleGeometry.draw(canvas, mScalePaint);
 		}
 	}
 	
+	/**
+	 * 目盛りを帯状のビットマップにラスタライズして描画するかをセットする<br />
+	 * 画面に複数のホイールを置く場合や性能の低い端末では、trueにすると毎フレームの描画が軽くなる
+	 * @param renderStrip	帯状のビットマップで描画するならtrue
+	 */
+	@SuppressWarnings("unused")
+	public void setRenderStripEnabled(boolean renderStrip) {
+		mIsRenderStrip = renderStrip;
+		if (!renderStrip) {
+			mScaleStrip.release();
+		}
+		
+		invalidate();
+	}
+	
+	/**
+	 * 慣性で速く回転している間に目盛りを間引いて描画するための角速度の閾値をセットする<br />
+	 * 速く回っている間は目盛りを1本ずつ見分けられないので、描画を減らしてフレームの負荷を下げる。
+	 * 減速すると元の密度に戻る。帯のビットマップで描画している場合は描画コストが一定なので間引かない
+	 * @param reducedDetailVelocity	目盛りを1本おきに間引く角速度(rad/sec)。Double.POSITIVE_INFINITYなら間引かない
+	 * @param majorOnlyVelocity		主目盛りだけを描く角速度(rad/sec)。Double.POSITIVE_INFINITYなら間引かない
+	 * @param majorScaleInterval	主目盛りの間隔(目盛りの本数)
+	 */
+	@SuppressWarnings("unused")
+	public void setLevelOfDetail(double reducedDetailVelocity, double majorOnlyVelocity, int majorScaleInterval) {
+		if (majorScaleInterval <= 0) {
+			throw new IllegalArgumentException("majorScaleInterval must be positive: " + majorScaleInterval);
+		}
+		
+		mReducedDetailVelocity = reducedDetailVelocity;
+		mMajorOnlyVelocity = majorOnlyVelocity;
+		mMajorScaleInterval = majorScaleInterval;
+		
+		invalidate();
+	}
+	
+	/**
+	 * 目盛りの数をセットする
+	 * @param scalesNumber	ホイール1周あたりの目盛りの数
+	 */
+	@SuppressWarnings("unused")
+	public void setScalesNumber(int scalesNumber) {
+		double radian = getRadian();
+		
+		mScalesNumber = scalesNumber;
+		mIntervalRadian = 2 * Math.PI / scalesNumber;
+		
+		// 同じ角度を新しい目盛り間隔で表し直す
+		double whole = Math.floor(radian / mIntervalRadian);
+		mCurrentTick = (long)whole;
+		mCurrentFraction = Math.max(0.0, radian - whole * mIntervalRadian);
+		if (mCurrentFraction >= mIntervalRadian) {
+			mCurrentTick++;
+			mCurrentFraction = 0.0;
+		}
+		
+		mScaleGeometry.invalidate();
+		updateScaleOffset();
+		mScaleStrip.invalidate();
+		
+		invalidate();
+	}
+	
+	/**
+	 * 目盛りの幅をセットする
+	 * @param scaleWidth	目盛りの幅(px)
+	 */
+	@SuppressWarnings("unused")
+	public void setScaleWidth(float scaleWidth) {
+		mScalePaint.setStrokeWidth(scaleWidth);
+		mScaleGeometry.invalidate();
+		mScaleStrip.invalidate();
+		
+		invalidate();
+	}
+	
+	/**
+	 * 目盛りの色をセットする
+	 * @param scaleColor	目盛りの色
+	 */
+	@SuppressWarnings("unused")
+	public void setScaleColor(int scaleColor) {
+		mScalePaint.setColor(scaleColor);
+		mScaleStrip.invalidate();
+		
+		invalidate();
+	}
+	
 	/**
 	 * ホイールに発生したイベントを捕捉するためのリスナをセットする
 	 * @param listener	ホイールに発生したイベントを捕捉するためのリスナ
 	 */
 	@SuppressWarnings("unused")
 	public void setListener(EventListener listener) {
-		mListener = listener;
+		mDispatcher.setListener(listener);
+	}
+	
+	/**
+	 * ホイールの指す目盛りが変わったことを捕捉するためのリスナをセットする<br />
+	 * 通知されるのはsetDeliveryModeでDeliveryMode.TickChangeを指定したときのみ
+	 * @param listener	ホイールの指す目盛りが変わったことを捕捉するためのリスナ
+	 */
+	@SuppressWarnings("unused")
+	public void setOnTickChangeListener(OnTickChangeListener listener) {
+		mDispatcher.setTickListener(listener);
+	}
+	
+	/**
+	 * ホイールを操作した結果をUIスレッド以外に伝播するためのリングバッファをセットする<br />
+	 * 角度が変わるたびと、ホイールが止まったときに(時刻, 角度(度), Stateのordinal)が書き込まれる。DeliveryModeの影響は受けない
+	 * @param stream	ホイールを操作した結果を書き込むリングバッファ。nullなら書き込まない
+	 */
+	@SuppressWarnings("unused")
+	public void setEventStream(ValueEventStream stream) {
+		mEventStream = stream;
+	}
+	
+	/**
+	 * 角度の変化をリスナに通知するタイミングをセットする
+	 * @param mode	通知するタイミング。デフォルトはDeliveryMode.EveryChange
+	 */
+	@SuppressWarnings("unused")
+	public void setDeliveryMode(DeliveryMode mode) {
+		mDispatcher.setMode(mode);
+	}
+	
+	/**
+	 * 値の範囲をセットする<br />
+	 * 目盛り0がminに対応し、目盛りが1つ進むごとに値がstepだけ増える。ホイールはminからmaxまでの範囲でしか回転しなくなり、
+	 * value_limitedによる0-360の範囲への折り返しは行われない。値は目盛りの番号から都度計算するので、回転を繰り返しても誤差は蓄積しない
+	 * @param min	目盛り0に対応する値
+	 * @param max	値の上限。min + n * stepがmaxを超えない最大の目盛りまで回転できる
+	 * @param step	目盛り1つあたりの値の増分
+	 */
+	@SuppressWarnings("unused")
+	public void setValueRange(double min, double max, double step) {
+		if (step <= 0.0) {
+			throw new IllegalArgumentException("step must be positive: " + step);
+		}
+		if (max < min) {
+			throw new IllegalArgumentException("max must not be less than min: " + min + " > " + max);
+		}
+		
+		mValueMin = BigDecimal.valueOf(min);
+		mValueStep = BigDecimal.valueOf(step);
+		mMaxTick = BigDecimal.valueOf(max).subtract(mValueMin).divide(mValueStep, 0, RoundingMode.FLOOR).longValue();
+		mHasValueRange = true;
+		
+		// 範囲外にいる場合は範囲内に戻す
+		cancelInertiaScroll();
+		moveTo(mCurrentTick, mCurrentFraction);
+	}
+	
+	/**
+	 * setValueRangeでセットした値の範囲を解除する
+	 */
+	@SuppressWarnings("unused")
+	public void clearValueRange() {
+		mHasValueRange = false;
+		mValueMin = BigDecimal.ZERO;
+		mValueStep = BigDecimal.ONE;
+		
+		// 範囲の端で止められていた目盛りの数を、0-360の範囲に収める場合は1周分で折り返す
+		cancelInertiaScroll();
+		moveTo(mCurrentTick, mCurrentFraction);
+	}
+	
+	/**
+	 * 現在のホイールの指す角度から最も近い目盛りに対応する値を得る<br />
+	 * setValueRangeでセットした範囲に従ってmin + 目盛りの番号 * stepを計算する。範囲をセットしていなければ目盛りの番号と同じ
+	 * @return	最も近い目盛りに対応する値
+	 */
+	@SuppressWarnings("unused")
+	public double getValue() {
+		return mValueMin.add(mValueStep.multiply(BigDecimal.valueOf(getTickIndex()))).doubleValue();
+	}
+	
+	/**
+	 * 現在のホイールの指す角度から最も近い目盛りの番号を得る<br />
+	 * 角度0の目盛りが0。value_limitedがfalseなら何周回しても番号は1つずつ増減し、途中で丸められることはない
+	 * @return	最も近い目盛りの番号
+	 */
+	public long getTickIndex() {
+		long tick = mCurrentTick + getNearestTickOffset(mCurrentFraction);
+		
+		// 0-360の範囲に収める場合、360度の目盛りは0度の目盛りと同じもの
+		return (isWrapping() && tick == mScalesNumber) ? 0L : tick;
 	}
 	
 	/**
@@ -189,7 +434,7 @@ public class HorizontalWheel extends View {
 	 * @return	ホイールの指す角度(ラジアン)
 	 */
 	public double getRadian() {
-		return mCurrentRadian;
+		return mCurrentTick * mIntervalRadian + mCurrentFraction;
 	}
 	
 	/**
@@ -198,18 +443,16 @@ public class HorizontalWheel extends View {
 	 */
 	public void setState(State newState) {
 		// ドラッグ操作が終了するときのみ、必要なら最も近くの目盛りにスナップする
-		// (フリック操作の場合は、startInertiaScrollで近くの目盛りにスナップするようにしてある)
+		// (フリック操作の場合は、flingで近くの目盛りにスナップするようにしてある)
 		if (mIsSnapScale && mCurrentState == State.Dragging && newState == State.Idle) {
-			double toRadian = getNearestRadian(mCurrentRadian);
-			int duration = (int)(Math.abs(mCurrentRadian - toRadian) * 1000);
-			
-			ValueAnimator anim = ValueAnimator.ofFloat((float)mCurrentRadian, (float)toRadian);
-			anim.setDuration(duration);
-			anim.addUpdateListener(mAnimationUpdateListener);
-			anim.addListener(new AnimationEndListener(toRadian));
-			anim.start();
+			startInertia(getSnapDistance(0.0));
 		} else {
+			State oldState = mCurrentState;
 			mCurrentState = newState;
+			
+			if (oldState != State.Idle && newState == State.Idle) {
+				onSettle();
+			}
 		}
 	}
 	
@@ -225,27 +468,50 @@ public class HorizontalWheel extends View {
 	 * @param newRadian	回転後の角度(rad)
 	 */
 	public void rotateTo(double newRadian) {
-		if (mIsValueLimited) {
-			if (newRadian > Math.PI * 2.0) {
-				mCurrentRadian = newRadian % (Math.PI * 2.0);
-			} else if (newRadian < 0.0) {
-				mCurrentRadian = Math.PI * 2.0 + newRadian;
-			} else {
-				mCurrentRadian = newRadian;
-			}
-		} else {
-			mCurrentRadian = newRadian;
+		rotateBy(newRadian - getRadian());
+	}
+	
+	/**
+	 * ホイールを現在の角度から回転させる<br />
+	 * 回転量は目盛り間の角度未満の部分にだけ足し、目盛りをまたいだ分は目盛りの数に繰り上げるので、
+	 * 何周回しても角度の精度は落ちない
+	 * @param deltaRadian	回転量(rad)
+	 */
+	public void rotateBy(double deltaRadian) {
+		double fraction = mCurrentFraction + deltaRadian;
+		double whole = Math.floor(fraction / mIntervalRadian);
+		long tick = mCurrentTick + (long)whole;
+		fraction -= whole * mIntervalRadian;
+		
+		// 丸め誤差で範囲をわずかに外れた場合
+		if (fraction >= mIntervalRadian) {
+			tick++;
+			fraction = 0.0;
+		} else if (fraction < 0.0) {
+			fraction = 0.0;
 		}
-
-		invalidate();
 		
-		if (mListener != null) {
-			mListener.onAngleChange(Math.toDegrees(mCurrentRadian));
+		moveTo(tick, fraction);
+	}
+	
+	/**
+	 * 慣性による回転を開始する<br />
+	 * 角速度は摩擦によって減衰し、必要なら止まる位置が最も近い目盛りになるよう初速を調整する
+	 * @param velocity	初速(rad/sec)
+	 */
+	public void fling(double velocity) {
+		if (mCurrentState == State.Inertia) {
+			return;
 		}
+		
+		// 到達位置は現在の角度からの相対値のまま求め、絶対的な角度は経由しない
+		double distance = mInertiaScroller.predictDistance(velocity);
+		
+		startInertia(mIsSnapScale ? getSnapDistance(distance) : distance);
 	}
 	
 	/**
-	 * 慣性による回転(っぽい)アニメーションを開始する
+	 * 慣性による回転を開始する
 	 * @param endRadian	回転終了角
 	 */
 	public void startInertiaScroll(double endRadian) {
@@ -254,37 +520,182 @@ public class HorizontalWheel extends View {
 		}
 		
 		// 必要なら回転終了角の最も近い目盛りにスナップ
-		// onAnimationEndでスナップすると、一旦止まったスクロールが再度動くという変な挙動になるので
-		double toRadian = mIsSnapScale ? getNearestRadian(endRadian) : endRadian;
-		int duration = (int) (Math.abs(mCurrentRadian - toRadian) * 1000);
+		// 止まってからスナップすると、一旦止まったスクロールが再度動くという変な挙動になるので
+		double distance = endRadian - getRadian();
 		
-		mInertiaAnimator = ValueAnimator.ofFloat((float)mCurrentRadian, (float)toRadian);
-		mInertiaAnimator.setDuration(duration);
-		mInertiaAnimator.addUpdateListener(mAnimationUpdateListener);
-		mInertiaAnimator.addListener(new AnimationEndListener(toRadian));
-		mInertiaAnimator.setInterpolator(new DecelerateInterpolator(2.5f));
-		mInertiaAnimator.start();
+		startInertia(mIsSnapScale ? getSnapDistance(distance) : distance);
 	}
 	
 	/**
-	 * 慣性による回転(っぽい)アニメーションを中止する
+	 * 慣性による回転を中止してIdleに戻す<br />
+	 * InertiaScrollerは中止してもonInertiaEndを呼ばないので、状態はここで戻す
 	 */
 	public void cancelInertiaScroll() {
-		if (mCurrentState == State.Inertia && mInertiaAnimator != null) {
-			mInertiaAnimator.cancel();
+		if (mCurrentState == State.Inertia) {
+			mInertiaScroller.cancel();
+			setState(State.Idle);
+		}
+	}
+	
+	/**
+	 * 連動して回転するグループをセットする。WheelGroupから呼ばれる
+	 * @param group				グループ。nullならグループから外れる
+	 * @param ratio				グループ内での回転の比率
+	 * @param inertiaScheduler	慣性回転のフレームコールバックの登録先
+	 * @param deliveryScheduler	リスナへの通知のフレームコールバックの登録先
+	 */
+	void setGroup(WheelGroup group, double ratio, FrameScheduler inertiaScheduler, FrameScheduler deliveryScheduler) {
+		cancelInertiaScroll();
+		
+		mGroup = group;
+		mGroupRatio = ratio;
+		mInertiaScroller.setScheduler(inertiaScheduler);
+		mDispatcher.setScheduler(deliveryScheduler);
+	}
+	
+	WheelGroup getGroup() {
+		return mGroup;
+	}
+	
+	double getGroupRatio() {
+		return mGroupRatio;
+	}
+	
+	/**
+	 * 慣性による回転の摩擦係数をセットする。大きいほど早く止まり、フリックしたときに回転する量も小さくなる
+	 * @param friction	摩擦係数(1/sec)
+	 */
+	@SuppressWarnings("unused")
+	public void setFlingFriction(double friction) {
+		mInertiaScroller.setFriction(friction);
+	}
+	
+	/**
+	 * 現在の角度から移動量distanceだけ慣性で回転させる
+	 * @param distance	移動量(rad)
+	 */
+	private void startInertia(double distance) {
+		// 値の範囲が指定されている場合は、範囲の端で止まるようにする
+		if (mHasValueRange) {
+			double lower = -(mCurrentTick * mIntervalRadian + mCurrentFraction);
+			double upper = (mMaxTick - mCurrentTick) * mIntervalRadian - mCurrentFraction;
+			distance = Math.max(lower, Math.min(upper, distance));
 		}
+		
+		mInertiaDisplacement = 0.0;
+		mCurrentState = State.Inertia;
+		if (mGroup != null) {
+			mGroup.onMemberInertiaStart(this);
+		}
+		
+		mInertiaScroller.start(distance);
 	}
 	
 	/**
-	 * 角度radianから最も近い目盛りの示す角度を返す
-	 * @param radian	基準となる角度(rad)
-	 * @return	radianから最も近い目盛りの示す角度
+	 * 指定の位置にホイールを回転させ、結果を反映・通知する
+	 * @param tick		回転後の角度のうち、目盛り間の角度で割り切れる部分(目盛りの数)
+	 * @param fraction	回転後の角度のうち、目盛り間の角度未満の部分(rad)
 	 */
-	private double getNearestRadian(double radian) {
-		int q1 = (int)(radian / mIntervalRadian);
-		double s = radian - q1 * mIntervalRadian;
-		int q2 = (q1 >= 0) ? q1 + 1 : q1 - 1;
+	private void moveTo(long tick, double fraction) {
+		if (mHasValueRange) {
+			if (tick < 0L) {
+				tick = 0L;
+				fraction = 0.0;
+			} else if (tick >= mMaxTick) {
+				tick = mMaxTick;
+				fraction = 0.0;
+			}
+		}
+		
+		double deltaRadian = (tick - mCurrentTick) * mIntervalRadian + (fraction - mCurrentFraction);
+		
+		// 0-360の範囲に収める場合、目盛りの数だけを1周分で折り返す
+		mCurrentTick = isWrapping() ? floorMod(tick, mScalesNumber) : tick;
+		mCurrentFraction = fraction;
 		
-		return (Math.abs(s) <= mIntervalRadian / 2.0) ? mIntervalRadian * q1 : mIntervalRadian * q2;
+		updateScaleOffset();
+		
+		invalidate();
+		
+		double angle = Math.toDegrees(getRadian());
+		mDispatcher.onAngleChange(angle, getTickIndex());
+		
+		if (mEventStream != null) {
+			mEventStream.offer(System.nanoTime(), angle, mCurrentState.ordinal());
+		}
+		
+		if (mGroup != null) {
+			mGroup.onMemberRotate(this, mGroupRatio, deltaRadian);
+		}
+	}
+	
+	/**
+	 * 現在の角度を目盛り線の座標キャッシュに反映する
+	 */
+	private void updateScaleOffset() {
+		// 目盛り間隔未満の回転量のsin/cosはここで一度だけ計算しておく
+		mScaleGeometry.setOffset(mCurrentFraction, mCurrentTick);
+	}
+	
+	/**
+	 * 現在の角速度に応じて、目盛りを何本おきに描くかを返す
+	 * @return	何本おきに目盛りを描くか。1ならすべて描く
+	 */
+	private int getScaleStride() {
+		if (mCurrentState != State.Inertia) {
+			return 1;
+		}
+		
+		double velocity = Math.abs(mInertiaScroller.getVelocity());
+		if (velocity >= mMajorOnlyVelocity) {
+			return mMajorScaleInterval;
+		} else if (velocity >= mReducedDetailVelocity) {
+			return 2;
+		}
+		return 1;
+	}
+	
+	/**
+	 * ホイールが止まった(Idleになった)ときの処理
+	 */
+	private void onSettle() {
+		mDispatcher.onSettle();
+		
+		if (mEventStream != null) {
+			mEventStream.offer(System.nanoTime(), Math.toDegrees(getRadian()), State.Idle.ordinal());
+		}
+	}
+	
+	/**
+	 * 角度が0-360の範囲で折り返されるかを返す
+	 */
+	private boolean isWrapping() {
+		return mIsValueLimited && !mHasValueRange;
+	}
+	
+	/**
+	 * 現在の目盛りから見て、fractionから最も近い目盛りがいくつ先にあるかを返す
+	 * @param fraction	現在の目盛りからの角度(rad)
+	 * @return	fractionから最も近い目盛りまでの目盛りの数
+	 */
+	private long getNearestTickOffset(double fraction) {
+		double whole = Math.floor(fraction / mIntervalRadian);
+		double s = fraction - whole * mIntervalRadian;
+		
+		return (long)whole + ((s > mIntervalRadian / 2.0) ? 1L : 0L);
+	}
+	
+	/**
+	 * 現在の角度からdistanceだけ回転した位置の、最も近い目盛りまでの回転量を返す
+	 * @param distance	現在の角度からの回転量(rad)
+	 * @return	最も近い目盛りまでの現在の角度からの回転量(rad)
+	 */
+	private double getSnapDistance(double distance) {
+		return getNearestTickOffset(mCurrentFraction + distance) * mIntervalRadian - mCurrentFraction;
+	}
+	
+	private static long floorMod(long x, int y) {
+		long mod = x % y;
+		return (mod < 0) ? mod + y : mod;
 	}
 }
@@ -0,0 +1,148 @@
+package jp.onetake.widget;
+
+import android.view.Choreographer;
+
+/**
+ * Choreographerのフレームコールバックで駆動する慣性スクロールの計算エンジン<br />
+ * 速度vは摩擦係数kで指数的に減衰する(dv/dt = -kv)ものとして、移動量を解析的に計算する。
+ * 初速vで投げた場合の移動量はv/kになるので、到達位置をスナップ先に合わせたい場合は逆算した初速で動かせばいい<br />
+ * 1つのインスタンスを使い回す前提で、動かしている間にメモリ確保を行わない。値はすべてdoubleのまま扱う<br />
+ * cancelで中止した場合はCallback#onInertiaEndが呼ばれないので、慣性スクロール中であることを示す状態は呼び出し側で戻すこと
+ */
+class InertiaScroller implements Choreographer.FrameCallback {
+	/**
+	 * 慣性スクロールの進行を受け取るためのコールバック
+	 */
+	interface Callback {
+		/**
+		 * フレームごとに呼ばれる
+		 * @param displacement	開始時点からの移動量
+		 */
+		void onInertiaUpdate(double displacement);
+		
+		/**
+		 * 慣性スクロールが目標の移動量に達して終了したときに呼ばれる。cancelで中止した場合は呼ばれない
+		 * @param displacement	開始時点からの移動量。startに渡した値と等しい
+		 */
+		void onInertiaEnd(double displacement);
+	}
+	
+	private static final double DEFAULT_FRICTION		= 5.0;
+	private static final double DEFAULT_STOP_THRESHOLD	= 0.0001;
+	
+	private Callback mCallback;
+	private double mFriction;			// 摩擦係数(1/sec)
+	private double mStopThreshold;		// 残りの移動量がこれ未満になったら終了する
+	
+	private double mDistance;			// 目標の移動量
+	private double mDisplacement;		// 現在の移動量
+	private long mStartTimeNanos;		// 開始時刻
+	private boolean mIsRunning;
+	private FrameScheduler mScheduler;		// フレームコールバックの登録先
+	
+	InertiaScroller(Callback callback) {
+		mCallback = callback;
+		mFriction = DEFAULT_FRICTION;
+		mStopThreshold = DEFAULT_STOP_THRESHOLD;
+		mScheduler = FrameScheduler.CHOREOGRAPHER;
+	}
+	
+	/**
+	 * フレームコールバックの登録先をセットする。動いている場合は中止される
+	 * @param scheduler	フレームコールバックの登録先
+	 */
+	void setScheduler(FrameScheduler scheduler) {
+		cancel();
+		mScheduler = scheduler;
+	}
+	
+	/**
+	 * 摩擦係数をセットする。大きいほど早く止まる
+	 * @param friction	摩擦係数(1/sec)
+	 */
+	void setFriction(double friction) {
+		if (friction <= 0.0) {
+			throw new IllegalArgumentException("friction must be positive: " + friction);
+		}
+		mFriction = friction;
+	}
+	
+	/**
+	 * 残りの移動量がいくつ未満になったら終了とみなすかをセットする
+	 * @param stopThreshold	終了とみなす残りの移動量
+	 */
+	void setStopThreshold(double stopThreshold) {
+		mStopThreshold = stopThreshold;
+	}
+	
+	/**
+	 * 初速velocityで投げたときに最終的に移動する量を得る
+	 * @param velocity	初速(単位/sec)
+	 * @return	最終的な移動量
+	 */
+	double predictDistance(double velocity) {
+		return velocity / mFriction;
+	}
+	
+	/**
+	 * 移動量がdistanceになるように慣性スクロールを開始する
+	 * @param distance	最終的な移動量
+	 */
+	void start(double distance) {
+		cancel();
+		
+		mDistance = distance;
+		mDisplacement = 0.0;
+		mStartTimeNanos = System.nanoTime();
+		mIsRunning = true;
+		
+		if (Math.abs(distance) < mStopThreshold) {
+			finish();
+		} else {
+			mScheduler.postFrameCallback(this);
+		}
+	}
+	
+	/**
+	 * 慣性スクロールを中止する。Callback#onInertiaEndは呼ばれない
+	 */
+	void cancel() {
+		if (mIsRunning) {
+			mScheduler.removeFrameCallback(this);
+			mIsRunning = false;
+		}
+	}
+	
+	/**
+	 * 現在の速度を得る
+	 * @return	速度(単位/sec)。止まっているときは0
+	 */
+	double getVelocity() {
+		return mIsRunning ? (mDistance - mDisplacement) * mFriction : 0.0;
+	}
+	
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!mIsRunning) {
+			return;
+		}
+		
+		// 呼び出しを予約した時刻より前のvsyncのタイムスタンプが来ることがあるので、その場合は経過時間0とみなす
+		double elapsed = Math.max(0L, frameTimeNanos - mStartTimeNanos) / 1000000000.0;
+		double remaining = mDistance * Math.exp(-mFriction * elapsed);
+		
+		if (Math.abs(remaining) < mStopThreshold) {
+			finish();
+		} else {
+			mDisplacement = mDistance - remaining;
+			mScheduler.postFrameCallback(this);
+			mCallback.onInertiaUpdate(mDisplacement);
+		}
+	}
+	
+	private void finish() {
+		mDisplacement = mDistance;
+		mIsRunning = false;
+		mCallback.onInertiaEnd(mDistance);
+	}
+}
@@ -0,0 +1,179 @@
+package jp.onetake.widget;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.IOException;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ピッカーの項目に表示する画像のキャッシュ<br />
+ * すべてのピッカーで1つのインスタンスを共有し、デコード済みの画像の合計バイト数が上限を超えたら古いものから捨てる。
+ * PickerImageSourceのデコードは優先度の低いワーカースレッドで行い、終わったらUIスレッドでImageViewにセットする<br />
+ * まだ始まっていないデコードは取り消すことができ、使い回されたImageViewや画面に入らなくなった先読みの分は実行されない
+ */
+public class PickerBitmapCache {
+	// デフォルトではヒープの上限の1/8までをキャッシュに使う
+	private static final int DEFAULT_MEMORY_DIVISOR = 8;
+	
+	private static PickerBitmapCache sInstance;
+	
+	private final LruCache<String, Bitmap> mCache;
+	private final ExecutorService mExecutor;
+	private final Handler mHandler;
+	// ImageViewごとの、まだ終わっていない読み込み。UIスレッドからだけ触るので同期はいらない
+	private final WeakHashMap<ImageView, Future<?>> mPendingLoads;
+	
+	/**
+	 * @return	すべてのピッカーで共有するインスタンス
+	 */
+	public static synchronized PickerBitmapCache getInstance() {
+		if (sInstance == null) {
+			sInstance = new PickerBitmapCache((int)(Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_DIVISOR));
+		}
+		return sInstance;
+	}
+	
+	private PickerBitmapCache(int maxBytes) {
+		mCache = new LruCache<String, Bitmap>(maxBytes) {
+			@Override
+			protected int sizeOf(String key, Bitmap value) {
+				return value.getByteCount();
+			}
+		};
+		mExecutor = Executors.newSingleThreadExecutor(new BackgroundThreadFactory("PickerBitmapCache"));
+		mHandler = new Handler(Looper.getMainLooper());
+		mPendingLoads = new WeakHashMap<>();
+	}
+	
+	/**
+	 * キャッシュに使うバイト数の上限を変更する。超えた分は古いものから捨てる
+	 * @param maxBytes	キャッシュに使うバイト数の上限
+	 */
+	@SuppressWarnings("unused")
+	public void resize(int maxBytes) {
+		mCache.resize(maxBytes);
+	}
+	
+	/**
+	 * キャッシュしている画像をすべて捨てる
+	 */
+	@SuppressWarnings("unused")
+	public void evictAll() {
+		mCache.evictAll();
+	}
+	
+	/**
+	 * 表示する大きさに合わせてデコードした画像をimageViewにセットする。UIスレッドから呼び出す<br />
+	 * キャッシュになければワーカースレッドでデコードし、その間imageViewは空にしておく。
+	 * デコードが終わる前にimageViewが別の項目に使い回されていたら、その結果はセットしない
+	 * @param source	画像の取得元
+	 * @param width		表示する幅
+	 * @param height	表示する高さ
+	 * @param imageView	画像をセットするImageView
+	 */
+	void load(final PickerImageSource source, final int width, final int height, final ImageView imageView) {
+		cancel(imageView);
+		
+		final String key = makeKey(source, width, height);
+		imageView.setTag(R.id.imageview_item, key);
+		
+		Bitmap bitmap = mCache.get(key);
+		if (bitmap != null) {
+			imageView.setImageBitmap(bitmap);
+			return;
+		}
+		
+		imageView.setImageBitmap(null);
+		
+		Future<?> future = mExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				final Bitmap result = decode(source, key, width, height);
+				
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (key.equals(imageView.getTag(R.id.imageview_item))) {
+							mPendingLoads.remove(imageView);
+							
+							if (result != null) {
+								imageView.setImageBitmap(result);
+							}
+						}
+					}
+				});
+			}
+		});
+		mPendingLoads.put(imageView, future);
+	}
+	
+	/**
+	 * imageViewに対する読み込みを取り消す。まだ始まっていなければデコードもしない。UIスレッドから呼び出す
+	 * @param imageView	読み込みを取り消すImageView
+	 */
+	void cancel(ImageView imageView) {
+		imageView.setTag(R.id.imageview_item, null);
+		
+		Future<?> future = mPendingLoads.remove(imageView);
+		if (future != null) {
+			future.cancel(false);
+		}
+	}
+	
+	/**
+	 * これから表示する画像を、ImageViewにセットせずにキャッシュへ読み込んでおく。UIスレッドから呼び出す<br />
+	 * 後で同じ大きさでloadを呼べば、デコードを待たずに表示できる。
+	 * 同じ画像を重ねて先読みしても、先に終わった分がキャッシュに入っていれば後の分はデコードしない
+	 * @param source	画像の取得元
+	 * @param width		表示する幅
+	 * @param height	表示する高さ
+	 * @return			取り消すためのFuture。すでにキャッシュにあればnull
+	 */
+	Future<?> prefetch(final PickerImageSource source, final int width, final int height) {
+		final String key = makeKey(source, width, height);
+		if (mCache.get(key) != null) {
+			return null;
+		}
+		
+		return mExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				decode(source, key, width, height);
+			}
+		});
+	}
+	
+	private static String makeKey(PickerImageSource source, int width, int height) {
+		return source.getKey() + "@" + width + "x" + height;
+	}
+	
+	/**
+	 * ワーカースレッドで画像をデコードしてキャッシュに入れる
+	 * @return	デコードした画像。デコードできなければnull
+	 */
+	private Bitmap decode(PickerImageSource source, String key, int width, int height) {
+		// 同じ画像のデコードが先に積まれていれば、その結果を使う
+		Bitmap decoded = mCache.get(key);
+		if (decoded == null) {
+			try {
+				decoded = source.decode(width, height);
+			} catch (IOException e) {
+				// 読み出せない画像は空のままにしておく
+				decoded = null;
+			}
+			
+			if (decoded != null) {
+				mCache.put(key, decoded);
+			}
+		}
+		
+		return decoded;
+	}
+}
@@ -0,0 +1,43 @@
+package jp.onetake.widget;
+
+/**
+ * RecyclerHorizontalPickerAdapterに項目を供給するデータソース<br />
+ * 項目をあらかじめリストに持たせる代わりに、項目の数と、位置から項目の内容を取り出す方法だけを実装する。
+ * 項目はページ単位でワーカースレッドで読み込まれ、読み込み中の項目は空のまま表示される。
+ * 表示されない項目のページは読み込まれないので、生成や読み込みにかかるコストも表示した分だけで済む
+ * @param <P>	ページの型。1ページ分の項目を保持するもの
+ */
+public interface PickerDataSource<P> {
+	/**
+	 * @return	項目の数
+	 */
+	int getCount();
+	
+	/**
+	 * @return	1ページに含まれる項目の数
+	 */
+	int getPageSize();
+	
+	/**
+	 * ページを読み込む。ワーカースレッドで呼ばれる
+	 * @param pageIndex	ページの番号。pageIndex * getPageSize()の位置の項目から始まる
+	 * @return			読み込んだページ。読み込めなければnull
+	 */
+	P loadPage(int pageIndex);
+	
+	/**
+	 * ページの中の項目に表示する文字列を返す。UIスレッドで呼ばれる
+	 * @param page	項目を含むページ
+	 * @param index	ページの中での項目の位置
+	 * @return		項目に表示する文字列。画像を表示する項目ならnull
+	 */
+	CharSequence getText(P page, int index);
+	
+	/**
+	 * ページの中の項目に表示する画像の取得元を返す。getTextがnullを返した項目についてのみ、UIスレッドで呼ばれる
+	 * @param page	項目を含むページ
+	 * @param index	ページの中での項目の位置
+	 * @return		項目に表示する画像の取得元
+	 */
+	PickerImageSource getImage(P page, int index);
+}
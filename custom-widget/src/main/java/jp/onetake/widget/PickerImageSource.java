@@ -0,0 +1,146 @@
+package jp.onetake.widget;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * ピッカーの項目に表示する画像の取得元<br />
+ * 項目に追加した時点ではデコードせず、表示する大きさが決まってからその大きさに合わせて縮小してデコードする。
+ * デコードはPickerBitmapCacheがワーカースレッドで行う
+ */
+public abstract class PickerImageSource {
+	/**
+	 * 画像のデータを読み出すストリームを開く。デコードのたびに新しいストリームが必要になるので、呼ばれるたびに開き直す
+	 */
+	public interface StreamOpener {
+		InputStream open() throws IOException;
+	}
+	
+	/**
+	 * @return	キャッシュのキー。同じ画像を指す取得元は同じ値を返す
+	 */
+	abstract String getKey();
+	
+	/**
+	 * 画像の大きさだけを読み出す
+	 * @param options	inJustDecodeBoundsをtrueにしたオプション
+	 */
+	abstract void decodeBounds(BitmapFactory.Options options) throws IOException;
+	
+	/**
+	 * 画像をデコードする
+	 * @param options	inSampleSizeをセットしたオプション
+	 * @return			デコードした画像。デコードできなければnull
+	 */
+	abstract Bitmap decode(BitmapFactory.Options options) throws IOException;
+	
+	/**
+	 * 表示する大きさ以上になる範囲で縮小して画像をデコードする
+	 * @param width		表示する幅
+	 * @param height	表示する高さ
+	 * @return			デコードした画像。デコードできなければnull
+	 */
+	Bitmap decode(int width, int height) throws IOException {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		decodeBounds(options);
+		
+		// 縮小しても表示する大きさを下回らない、最大の2のべき乗を選ぶ
+		int sampleSize = 1;
+		if (width > 0 && height > 0) {
+			while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+				sampleSize *= 2;
+			}
+		}
+		
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = sampleSize;
+		
+		return decode(options);
+	}
+	
+	/**
+	 * リソースの画像を取得元にする
+	 * @param resources	リソース
+	 * @param resId		画像のリソースID
+	 */
+	public static PickerImageSource fromResource(final Resources resources, final int resId) {
+		return new PickerImageSource() {
+			@Override
+			String getKey() {
+				return "res:" + resId;
+			}
+			
+			@Override
+			void decodeBounds(BitmapFactory.Options options) {
+				BitmapFactory.decodeResource(resources, resId, options);
+			}
+			
+			@Override
+			Bitmap decode(BitmapFactory.Options options) {
+				return BitmapFactory.decodeResource(resources, resId, options);
+			}
+		};
+	}
+	
+	/**
+	 * ファイルの画像を取得元にする
+	 * @param path	画像ファイルのパス
+	 */
+	public static PickerImageSource fromFile(final String path) {
+		return new PickerImageSource() {
+			@Override
+			String getKey() {
+				return "file:" + path;
+			}
+			
+			@Override
+			void decodeBounds(BitmapFactory.Options options) {
+				BitmapFactory.decodeFile(path, options);
+			}
+			
+			@Override
+			Bitmap decode(BitmapFactory.Options options) {
+				return BitmapFactory.decodeFile(path, options);
+			}
+		};
+	}
+	
+	/**
+	 * ストリームから読み出す画像を取得元にする
+	 * @param key		キャッシュのキー。同じ画像には同じキーを渡す
+	 * @param opener	画像のデータを読み出すストリームを開くオブジェクト
+	 */
+	public static PickerImageSource fromStream(final String key, final StreamOpener opener) {
+		return new PickerImageSource() {
+			@Override
+			String getKey() {
+				return "stream:" + key;
+			}
+			
+			@Override
+			void decodeBounds(BitmapFactory.Options options) throws IOException {
+				InputStream stream = opener.open();
+				try {
+					BitmapFactory.decodeStream(stream, null, options);
+				} finally {
+					stream.close();
+				}
+			}
+			
+			@Override
+			Bitmap decode(BitmapFactory.Options options) throws IOException {
+				InputStream stream = opener.open();
+				try {
+					return BitmapFactory.decodeStream(stream, null, options);
+				} finally {
+					stream.close();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,152 @@
+package jp.onetake.widget;
+
+/**
+ * HorizontalPickerの各項目の幅と、先頭から各項目の左端までの距離(オフセット)を保持するインデックス<br />
+ * 幅はFenwick木(Binary Indexed Tree)で持つので、幅の変更も、オフセットの取得も、座標から項目の位置を求めるのも
+ * 項目の数によらずO(log n)で済む。項目の差し込みと取り除きは位置がずれるので、配列を詰め直すついでに木を線形時間で組み直す
+ */
+class PickerItemOffsets {
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private int[] mWidths;		// 各項目の幅
+	private int[] mTree;		// Fenwick木。mTree[i]は(i - (i & -i), i]番目の項目の幅の合計。添字は1から
+	private int mCount;
+	
+	PickerItemOffsets() {
+		mWidths = new int[INITIAL_CAPACITY];
+		mTree = new int[INITIAL_CAPACITY + 1];
+	}
+	
+	/**
+	 * すべての項目を取り除く
+	 */
+	void clear() {
+		mCount = 0;
+	}
+	
+	/**
+	 * @return	項目の数
+	 */
+	int size() {
+		return mCount;
+	}
+	
+	/**
+	 * positionStartの位置に幅0の項目をitemCount個差し込む。幅はsetWidthでセットする
+	 * @param positionStart	差し込む位置
+	 * @param itemCount		差し込む項目の数
+	 */
+	void insert(int positionStart, int itemCount) {
+		if (mCount + itemCount > mWidths.length) {
+			int capacity = Math.max(mWidths.length * 2, mCount + itemCount);
+			
+			int[] widths = new int[capacity];
+			System.arraycopy(mWidths, 0, widths, 0, mCount);
+			mWidths = widths;
+			mTree = new int[capacity + 1];
+		}
+		
+		System.arraycopy(mWidths, positionStart, mWidths, positionStart + itemCount, mCount - positionStart);
+		for (int i = positionStart ; i < positionStart + itemCount ; i++) {
+			mWidths[i] = 0;
+		}
+		
+		mCount += itemCount;
+		rebuild();
+	}
+	
+	/**
+	 * positionStartの位置からitemCount個の項目を取り除く
+	 * @param positionStart	取り除く最初の位置
+	 * @param itemCount		取り除く項目の数
+	 */
+	void remove(int positionStart, int itemCount) {
+		System.arraycopy(mWidths, positionStart + itemCount, mWidths, positionStart, mCount - positionStart - itemCount);
+		
+		mCount -= itemCount;
+		rebuild();
+	}
+	
+	/**
+	 * positionの位置にある項目の幅をセットする
+	 * @param position	項目の位置
+	 * @param width		項目の幅
+	 */
+	void setWidth(int position, int width) {
+		int delta = width - mWidths[position];
+		if (delta == 0) {
+			return;
+		}
+		
+		mWidths[position] = width;
+		for (int i = position + 1 ; i <= mCount ; i += i & -i) {
+			mTree[i] += delta;
+		}
+	}
+	
+	/**
+	 * @param position	項目の位置
+	 * @return			positionの位置にある項目の幅
+	 */
+	int getWidth(int position) {
+		return mWidths[position];
+	}
+	
+	/**
+	 * @param position	項目の位置。項目の数と同じ値を渡すと全項目の幅の合計を返す
+	 * @return			先頭からpositionの位置にある項目の左端までの距離
+	 */
+	int getOffset(int position) {
+		int offset = 0;
+		for (int i = position ; i > 0 ; i -= i & -i) {
+			offset += mTree[i];
+		}
+		return offset;
+	}
+	
+	/**
+	 * @return	全項目の幅の合計
+	 */
+	int getTotalWidth() {
+		return getOffset(mCount);
+	}
+	
+	/**
+	 * 先頭からの距離がxの地点にある項目の位置を返す。範囲外ならもっとも近い端の項目の位置を返す
+	 * @param x	先頭からの距離
+	 * @return	xの地点にある項目の位置。項目がなければ-1
+	 */
+	int findPosition(int x) {
+		if (mCount == 0) {
+			return -1;
+		}
+		
+		// getOffset(position) <= xとなる最大のpositionを、木を上の桁から降りながら探す
+		int position = 0;
+		int remaining = x;
+		for (int step = Integer.highestOneBit(mCount) ; step > 0 ; step >>= 1) {
+			int next = position + step;
+			if (next <= mCount && mTree[next] <= remaining) {
+				position = next;
+				remaining -= mTree[next];
+			}
+		}
+		
+		return Math.min(position, mCount - 1);
+	}
+	
+	/**
+	 * 幅の配列から木を線形時間で組み直す
+	 */
+	private void rebuild() {
+		for (int i = 1 ; i <= mCount ; i++) {
+			mTree[i] = mWidths[i - 1];
+		}
+		for (int i = 1 ; i <= mCount ; i++) {
+			int parent = i + (i & -i);
+			if (parent <= mCount) {
+				mTree[parent] += mTree[i];
+			}
+		}
+	}
+}
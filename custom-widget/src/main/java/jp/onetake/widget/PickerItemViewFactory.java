@@ -0,0 +1,117 @@
+package jp.onetake.widget;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ピッカーの項目のViewを作るファクトリ<br />
+ * prewarmを呼んでおくと、ピッカーが画面に出る前にワーカースレッドで項目のViewを作り溜めておき、
+ * UIスレッドではそれを取り出すだけで済むようになる。
+ * XMLを使わずにコードで組み立てるモードにすると、レイアウトのパースも省ける<br />
+ * 作ったViewにはR.id.textview_itemとR.id.imageview_itemのIDが振られているので、どちらのモードでも同じように扱える
+ */
+public class PickerItemViewFactory {
+	private static final float TEXT_SIZE_SP = 20.0f;
+	
+	// すべてのファクトリで共有する、Viewを作り溜めておくためのワーカースレッド。UIスレッドの邪魔をしないよう優先度を下げておく
+	private static final ExecutorService PREWARM_EXECUTOR =
+			Executors.newSingleThreadExecutor(new BackgroundThreadFactory("PickerItemViewFactory"));
+	
+	private final Context mContext;
+	private final boolean mIsProgrammatic;
+	private final ConcurrentLinkedQueue<View> mPreparedViews;
+	// ワーカースレッド専用のLayoutInflater。inflateはインスタンスごとに同期するので、UIスレッドと同じものを使うと待たせてしまう
+	private final LayoutInflater mPrewarmInflater;
+	
+	/**
+	 * view_picker_itemをインフレートしてViewを作るファクトリを生成する
+	 * @param context	Viewを作るのに使うコンテキスト
+	 */
+	public PickerItemViewFactory(Context context) {
+		this(context, false);
+	}
+	
+	/**
+	 * @param context		Viewを作るのに使うコンテキスト
+	 * @param programmatic	XMLを使わずにコードでViewを組み立てるならtrue
+	 */
+	public PickerItemViewFactory(Context context, boolean programmatic) {
+		mContext = context;
+		mIsProgrammatic = programmatic;
+		mPreparedViews = new ConcurrentLinkedQueue<>();
+		mPrewarmInflater = LayoutInflater.from(context).cloneInContext(context);
+	}
+	
+	/**
+	 * ワーカースレッドで項目のViewをcount個作り溜めておく。ピッカーが画面に出る前に呼ぶ
+	 * @param count	作り溜めておくViewの数。画面に同時に表示される項目の数より少し多めにしておくとよい
+	 */
+	@SuppressWarnings("unused")
+	public void prewarm(final int count) {
+		PREWARM_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				// 親を渡さないとルートのレイアウトパラメータが失われるので、使い捨ての親を使う
+				FrameLayout parent = new FrameLayout(mContext);
+				
+				for (int i = 0 ; i < count ; i++) {
+					mPreparedViews.offer(create(mPrewarmInflater, parent));
+				}
+			}
+		});
+	}
+	
+	/**
+	 * 項目のViewを1つ取り出す。作り溜めてあるものがなければその場で作る。UIスレッドから呼び出す
+	 * @param parent	Viewを追加する先の親
+	 * @return			項目のView
+	 */
+	public View obtain(ViewGroup parent) {
+		View view = mPreparedViews.poll();
+		if (view == null) {
+			view = create(LayoutInflater.from(mContext), parent);
+		}
+		
+		return view;
+	}
+	
+	private View create(LayoutInflater inflater, ViewGroup parent) {
+		if (!mIsProgrammatic) {
+			return inflater.inflate(R.layout.view_picker_item, parent, false);
+		}
+		
+		// view_picker_itemからデバッグ用の点を除いたものと同じ構成
+		FrameLayout layout = new FrameLayout(mContext);
+		layout.setLayoutParams(new FrameLayout.LayoutParams(
+				ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+		
+		TextView textView = new TextView(mContext);
+		textView.setId(R.id.textview_item);
+		textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP);
+		textView.setTextColor(Color.BLACK);
+		textView.setVisibility(View.INVISIBLE);
+		layout.addView(textView, new FrameLayout.LayoutParams(
+				ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+		
+		ImageView imageView = new ImageView(mContext);
+		imageView.setId(R.id.imageview_item);
+		imageView.setScaleType(ImageView.ScaleType.CENTER);
+		imageView.setVisibility(View.INVISIBLE);
+		layout.addView(imageView, new FrameLayout.LayoutParams(
+				ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+		
+		return layout;
+	}
+}
@@ -0,0 +1,193 @@
+package jp.onetake.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.util.SparseBooleanArray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * PickerDataSourceのページをワーカースレッドで読み込み、読み込んだページを一定数までキャッシュしておくクラス<br />
+ * 読み込みが終わるとUIスレッドでListenerに通知する。同じページの読み込みは重複して積まない。
+ * 読み込みはすべてのローダーで共有する優先度の低いワーカースレッドで行う<br />
+ * 読み込みに失敗したページは、少し待ってからListenerに通知し、もう一度表示されたときに読み込み直させる
+ * @param <P>	ページの型
+ */
+class PickerPageLoader<P> {
+	/**
+	 * ページの読み込みが終わったことを受け取るリスナ
+	 */
+	interface Listener {
+		/**
+		 * ページの読み込みが終わったときにUIスレッドで呼ばれる
+		 * @param start	読み込んだページの最初の項目の位置
+		 * @param count	読み込んだページに含まれる項目の数
+		 */
+		void onPageLoaded(int start, int count);
+		
+		/**
+		 * ページの読み込みに失敗してから、読み込み直せるようになったときにUIスレッドで呼ばれる
+		 * @param start	読み込めなかったページの最初の項目の位置
+		 * @param count	読み込めなかったページに含まれる項目の数
+		 */
+		void onPageFailed(int start, int count);
+	}
+	
+	// キャッシュしておくページの数の下限
+	private static final int MIN_CACHED_PAGES	= 8;
+	// 表示中の項目を含むページのほかに余分にキャッシュしておくページの数
+	// 両隣の先読みと、循環モードで末尾と先頭のページが同時に表示される分
+	private static final int EXTRA_CACHED_PAGES	= 3;
+	// ページの端からこの割合の範囲に入った項目を表示したら、隣のページを先に読み込んでおく
+	private static final int PREFETCH_DIVISOR	= 4;
+	// 読み込みに失敗したページを、読み込み直せるようにするまでの時間(ms)
+	private static final long RETRY_DELAY_MS	= 1000;
+	
+	// すべてのローダーで共有する、ページを読み込むためのワーカースレッド
+	private static final ExecutorService LOAD_EXECUTOR =
+			Executors.newSingleThreadExecutor(new BackgroundThreadFactory("PickerPageLoader"));
+	
+	private final PickerDataSource<P> mSource;
+	private final Listener mListener;
+	private final LruCache<Integer, P> mPages;
+	private final SparseBooleanArray mLoadingPages;
+	private final Handler mHandler;
+	private volatile boolean mIsReleased;
+	
+	PickerPageLoader(PickerDataSource<P> source, Listener listener) {
+		mSource = source;
+		mListener = listener;
+		mPages = new LruCache<>(MIN_CACHED_PAGES);
+		mLoadingPages = new SparseBooleanArray();
+		mHandler = new Handler(Looper.getMainLooper());
+	}
+	
+	/**
+	 * @return	項目の数
+	 */
+	int getCount() {
+		return mSource.getCount();
+	}
+	
+	/**
+	 * 同時に表示される項目をすべて含むページがキャッシュから追い出されないよう、キャッシュするページの数を広げる<br />
+	 * 表示中のページを追い出しては読み込み直すことにならないよう、表示する項目の数が決まったら呼び出す
+	 * @param visibleCount	同時に表示される(先読みも含めて結び付けられる)項目の数
+	 */
+	void ensureCapacity(int visibleCount) {
+		int pageSize = mSource.getPageSize();
+		int pages = Math.max(MIN_CACHED_PAGES, (visibleCount + pageSize - 1) / pageSize + EXTRA_CACHED_PAGES);
+		if (pages > mPages.maxSize()) {
+			mPages.resize(pages);
+		}
+	}
+	
+	/**
+	 * positionの位置の項目を含むページが読み込み済みならtrueを返す。読み込まれていなければ読み込みを始める
+	 * @param position	項目の位置
+	 */
+	boolean isLoaded(int position) {
+		int pageSize = mSource.getPageSize();
+		int pageIndex = position / pageSize;
+		int index = position % pageSize;
+		
+		// ページの端に近づいたら、スクロールしていく先のページを先に読み込んでおく
+		if (index < pageSize / PREFETCH_DIVISOR && pageIndex > 0) {
+			requestPage(pageIndex - 1);
+		} else if (index >= pageSize - pageSize / PREFETCH_DIVISOR && (pageIndex + 1) * pageSize < mSource.getCount()) {
+			requestPage(pageIndex + 1);
+		}
+		
+		return requestPage(pageIndex) != null;
+	}
+	
+	/**
+	 * @param position	読み込み済みの項目の位置
+	 * @return			項目に表示する文字列。画像を表示する項目ならnull
+	 */
+	CharSequence getText(int position) {
+		int pageSize = mSource.getPageSize();
+		return mSource.getText(mPages.get(position / pageSize), position % pageSize);
+	}
+	
+	/**
+	 * @param position	読み込み済みの項目の位置
+	 * @return			項目に表示する画像の取得元
+	 */
+	PickerImageSource getImage(int position) {
+		int pageSize = mSource.getPageSize();
+		return mSource.getImage(mPages.get(position / pageSize), position % pageSize);
+	}
+	
+	/**
+	 * 読み込みをやめる。まだ積まれている読み込みは行われず、終わった読み込みも通知しない
+	 */
+	void release() {
+		mIsReleased = true;
+	}
+	
+	private P requestPage(final int pageIndex) {
+		P page = mPages.get(pageIndex);
+		if (page != null || mIsReleased || mLoadingPages.get(pageIndex)) {
+			return page;
+		}
+		
+		mLoadingPages.put(pageIndex, true);
+		LOAD_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				// 積まれている間にリリースされたら読み込まない
+				if (mIsReleased) {
+					return;
+				}
+				
+				P page;
+				try {
+					page = mSource.loadPage(pageIndex);
+				} catch (RuntimeException e) {
+					// データソースの例外でワーカースレッドを止めず、読み込めなかったものとして扱う
+					page = null;
+				}
+				
+				final P loaded = page;
+				if (loaded != null) {
+					mHandler.post(new Runnable() {
+						@Override
+						public void run() {
+							mLoadingPages.delete(pageIndex);
+							
+							if (!mIsReleased) {
+								mPages.put(pageIndex, loaded);
+								mListener.onPageLoaded(getPageStart(pageIndex), getPageCount(pageIndex));
+							}
+						}
+					});
+				} else {
+					// すぐに読み込み直すと失敗し続けるページを延々と読み込むことになるので、少し待ってから読み込み直せるようにする
+					mHandler.postDelayed(new Runnable() {
+						@Override
+						public void run() {
+							mLoadingPages.delete(pageIndex);
+							
+							if (!mIsReleased) {
+								mListener.onPageFailed(getPageStart(pageIndex), getPageCount(pageIndex));
+							}
+						}
+					}, RETRY_DELAY_MS);
+				}
+			}
+		});
+		
+		return null;
+	}
+	
+	private int getPageStart(int pageIndex) {
+		return pageIndex * mSource.getPageSize();
+	}
+	
+	private int getPageCount(int pageIndex) {
+		return Math.min(mSource.getPageSize(), mSource.getCount() - getPageStart(pageIndex));
+	}
+}
@@ -0,0 +1,94 @@
+package jp.onetake.widget;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * 複数のRecyclerHorizontalPickerで共有するViewHolderのプール<br />
+ * 同じ画面にピッカーをいくつも並べる場合、それぞれのRecyclerViewが別々にViewHolderを作らずに済むよう、1つのプールを共有させる。
+ * 最初にピッカーを登録したときに、画面に同時に表示される分のViewHolderをまとめて作っておくので、
+ * 2つ目以降のピッカーはスクロールしても新たにViewを作らない<br />
+ * 作っておく数は、特に指定しなければピッカーの幅と項目の幅から求めた、同時に表示される項目の数に2を足したものになる
+ */
+public class PickerViewPool {
+	// 1つの種類のViewHolderをいくつまでプールしておくかのデフォルト。RecycledViewPoolのデフォルトは5
+	private static final int DEFAULT_MAX_RECYCLED_VIEWS	= 16;
+	// 作っておく数を求めるときに、同時に表示される項目の数に足す数。両端で欠けて表示される分
+	private static final int EXTRA_PREWARM_VIEWS		= 2;
+	
+	private final RecyclerView.RecycledViewPool mPool;
+	private final SparseIntArray mMaxRecycledViews;	// 種類ごとの、プールしておく最大の数
+	private int mPrewarmCount;		// 作っておくViewHolderの数。負ならピッカーの幅から求める
+	private int mPrewarmedCount;	// これまでに作っておいたViewHolderの数
+	
+	public PickerViewPool() {
+		mPool = new RecyclerView.RecycledViewPool();
+		mMaxRecycledViews = new SparseIntArray();
+		mPrewarmCount = -1;
+		
+		setMaxRecycledViews(RecyclerHorizontalPickerAdapter.ITEM_VIEW_TYPE, DEFAULT_MAX_RECYCLED_VIEWS);
+	}
+	
+	/**
+	 * viewTypeの種類のViewHolderを、いくつまでプールしておくかをセットする
+	 * @param viewType	ViewHolderの種類
+	 * @param max		プールしておく最大の数
+	 */
+	@SuppressWarnings("unused")
+	public void setMaxRecycledViews(int viewType, int max) {
+		mPool.setMaxRecycledViews(viewType, max);
+		mMaxRecycledViews.put(viewType, max);
+	}
+	
+	/**
+	 * ピッカーを登録したときに作っておくViewHolderの数をセットする<br />
+	 * 1つのピッカーの画面に同時に表示される項目の数より少し多めにしておくとよい。
+	 * プールしておく最大の数を超えた分は作らない
+	 * @param count	作っておくViewHolderの数。負ならピッカーの幅と項目の幅から求める
+	 */
+	@SuppressWarnings("unused")
+	public void setPrewarmCount(int count) {
+		mPrewarmCount = count;
+	}
+	
+	RecyclerView.RecycledViewPool getPool() {
+		return mPool;
+	}
+	
+	/**
+	 * まだ作っていなければ、プールにViewHolderを作っておく
+	 * @param recyclerView	ViewHolderを作るのに使う親
+	 * @param adapter		ViewHolderを作るアダプタ
+	 */
+	void prewarm(RecyclerView recyclerView, RecyclerHorizontalPickerAdapter adapter) {
+		int viewType = RecyclerHorizontalPickerAdapter.ITEM_VIEW_TYPE;
+		
+		// プールに入りきらない分はputRecycledViewで捨てられてしまうので、作らない
+		int count = Math.min(getPrewarmCount(recyclerView, adapter), mMaxRecycledViews.get(viewType));
+		for ( ; mPrewarmedCount < count ; mPrewarmedCount++) {
+			mPool.putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+		}
+	}
+	
+	/**
+	 * 作っておくViewHolderの数を返す。指定されていなければ、同時に表示される項目の数から求める<br />
+	 * ピッカーはまだレイアウトされていないことが多いので、幅が決まっていなければ画面の幅いっぱいに表示されるものとする
+	 */
+	private int getPrewarmCount(RecyclerView recyclerView, RecyclerHorizontalPickerAdapter adapter) {
+		if (mPrewarmCount >= 0) {
+			return mPrewarmCount;
+		}
+		
+		int itemWidth = adapter.getItemWidth();
+		if (itemWidth <= 0) {
+			return 0;
+		}
+		
+		int width = recyclerView.getWidth();
+		if (width <= 0) {
+			width = recyclerView.getResources().getDisplayMetrics().widthPixels;
+		}
+		
+		return (width + itemWidth - 1) / itemWidth + EXTRA_PREWARM_VIEWS;
+	}
+}
@@ -4,11 +4,10 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.support.annotation.Nullable;
-import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.LinearSnapHelper;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
-import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
 
@@ -20,17 +19,41 @@ public class RecyclerHorizontalPicker extends FrameLayout {
 		void onSelect(int position);
 	}
 	
+	/**
+	 * スクロール中の位置を、項目の中央どうしの間を補間した小数で通知するリスナ<br />
+	 * 1フレームに1回までしか呼ばれない
+	 */
+	public interface OnPositionChangeListener {
+		void onPositionChanged(float position);
+	}
+	
 	private static final int DEFAULT_ITEM_WIDTH = 120;
 	
+	// スクロール中の位置を、何度スクロールされても1フレームに1回だけ通知する
+	private Runnable mPositionDispatcher = new Runnable() {
+		@Override
+		public void run() {
+			mIsPositionDispatchPosted = false;
+			dispatchPositionChanged();
+		}
+	};
+	
 	private RecyclerView mRecyclerView;
+	private CenterLockLayoutManager mLayoutManager;
+	private LinearSnapHelper mSnapHelper;
 	private View[] mOverlays;
 	
-	private int mWidth;
-	private int mHeight;
 	private int mItemWidth;
+	private int mOverlayWidth;		// 中央の項目の左右を覆うオーバーレイの幅
 	private int mCurrentPosition;
-	private boolean mIsLayouted;
+	private boolean mIsCircular;
+	private PickerViewPool mViewPool;
 	private OnSelectListener mListener;
+	private OnPositionChangeListener mPositionListener;
+	private ValueEventStream mEventStream;
+	
+	private boolean mIsPositionDispatchPosted;	// スクロール中の位置の通知を予約済みか
+	private float mLastPosition;				// 前回通知した位置。同じ位置は通知しない
 	
 	public RecyclerHorizontalPicker(Context context) {
 		this(context, null);
@@ -40,13 +63,36 @@ public class RecyclerHorizontalPicker extends FrameLayout {
 		super(context, attrs);
 		
 		mCurrentPosition = 0;
-		mIsLayouted = false;
+		mItemWidth = DEFAULT_ITEM_WIDTH;
+		mOverlayWidth = -1;
+		mLastPosition = Float.NaN;
 		
 		View view = LayoutInflater.from(context).inflate(R.layout.view_recycler_horizontal_picker, this, true);
 		mRecyclerView = (RecyclerView)view.findViewById(R.id.recycler_view_picker);
-		LinearLayoutManager manager = new LinearLayoutManager(context);
-		manager.setOrientation(LinearLayoutManager.HORIZONTAL);
-		mRecyclerView.setLayoutManager(manager);
+		// 項目はすべて同じ幅なので、中央を基準に計算で配置するLayoutManagerを使う
+		mLayoutManager = new CenterLockLayoutManager(mItemWidth);
+		mRecyclerView.setLayoutManager(mLayoutManager);
+		
+		// 指を離した後の慣性スクロールと、中央の項目に合わせる動きはSnapHelperに任せる
+		mSnapHelper = new LinearSnapHelper();
+		mSnapHelper.attachToRecyclerView(mRecyclerView);
+		mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+				// SnapHelperが同じ通知の中で位置合わせを始めていることがあるので、通知された値ではなく今の状態を見る
+				if (recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+					onScrollSettled();
+				}
+			}
+			
+			@Override
+			public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+				if (mPositionListener != null && !mIsPositionDispatchPosted) {
+					mIsPositionDispatchPosted = true;
+					postOnAnimation(mPositionDispatcher);
+				}
+			}
+		});
 		
 		mOverlays = new View[] { view.findViewById(R.id.view_overlay_left), view.findViewById(R.id.view_overlay_right) };
 		
@@ -56,6 +102,8 @@ public class RecyclerHorizontalPicker extends FrameLayout {
 			mItemWidth = array.getDimensionPixelSize(
 					R.styleable.RecyclerHorizontalPicker_item_width, DEFAULT_ITEM_WIDTH);
 			
+			mIsCircular = array.getBoolean(R.styleable.RecyclerHorizontalPicker_circular, false);
+			
 			int backgroundColor = array.getColor(R.styleable.RecyclerHorizontalPicker_background_color, Color.WHITE);
 			setBackgroundColor(backgroundColor);
 			
@@ -69,72 +117,194 @@ public class RecyclerHorizontalPicker extends FrameLayout {
 			
 			array.recycle();
 		}
+		
+		mLayoutManager.setItemWidth(mItemWidth);
 	}
 	
-	@Override
-	public boolean dispatchTouchEvent(MotionEvent event) {
-		// タッチした指が離れたら、RecyclerViewの中央に位置するViewの中央が真ん中になるよう移動する
-		if (event.getAction() == MotionEvent.ACTION_UP) {
-			float centerX = mWidth / 2.0f;
-			
-			View view = mRecyclerView.findChildViewUnder(centerX, mHeight / 2.0f);
-			float viewCenterX = view.getX() + view.getWidth() / 2.0f;
-			
-			mRecyclerView.smoothScrollBy((int)(viewCenterX - centerX), 0);
-			
-			if (view.getTag() != null) {
-				int position = (int)view.getTag();
-				if (position != mCurrentPosition) {
-					if (mListener != null) {
-						mListener.onSelect(position);
-					}
-					
-					mCurrentPosition = position;
-				}
+	/**
+	 * スクロールが止まり、中央の項目がぴったり中央に収まったところで選択を通知する
+	 */
+	private void onScrollSettled() {
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		if (adapter == null || adapter.getItemCount() == 0) {
+			return;
+		}
+		
+		// SnapHelperがまだ位置を合わせている途中なら、合わせ終わってもう一度止まったときに通知する
+		// 中央の項目もそこまでの距離も、子Viewを調べなくてもLayoutManagerのスクロール量から求まる
+		if (mLayoutManager.getDistanceToCenter() != 0) {
+			return;
+		}
+		
+		int position = adapter.getRealPosition(mLayoutManager.getCenterPosition());
+		if (position != mCurrentPosition) {
+			if (mListener != null) {
+				mListener.onSelect(position);
+			}
+			if (mEventStream != null) {
+				mEventStream.offer(System.nanoTime(), position, 0);
 			}
 			
-			return true;
+			mCurrentPosition = position;
 		}
-		
-		return super.dispatchTouchEvent(event);
 	}
 	
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-		
-		mWidth = MeasureSpec.getSize(widthMeasureSpec);
-		mHeight = MeasureSpec.getSize(heightMeasureSpec);
-	}
-	
-	@Override
-	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-		super.onLayout(changed, left, top, right, bottom);
-
-		// RecyclerViewの先頭と末尾にはスクロール阻止のための空白を入れているが、
-		// そのサイズを決定するためにはこのView自体のサイズが必要
-		if (!mIsLayouted && mWidth > 0) {
-			RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
-			adapter.setBlankWidth(mWidth / 2 - mItemWidth / 2);
-			adapter.notifyDataSetChanged();
+		// 項目は中央を基準にLayoutManagerが配置するので、ここでは中央の項目の左右を覆う幅だけを決める
+		// 子を測る前に決めておけば、測り直さなくて済む
+		int overlayWidth = (MeasureSpec.getSize(widthMeasureSpec) - mItemWidth) / 2;
+		if (overlayWidth != mOverlayWidth) {
+			mOverlayWidth = overlayWidth;
 			
-			int overlayWidth = (mWidth - mItemWidth) / 2;
 			for (View overlay : mOverlays) {
 				overlay.getLayoutParams().width = overlayWidth;
 			}
-			
-			mIsLayouted = true;
 		}
+		
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 	}
 	
 	public void setAdapter(RecyclerHorizontalPickerAdapter adapter) {
 		adapter.setItemWidth(mItemWidth);
-		adapter.setBlankWidth((mWidth - mItemWidth) / 2);
+		adapter.setCircular(mIsCircular);
 		
 		mRecyclerView.setAdapter(adapter);
+		
+		if (mViewPool != null) {
+			mViewPool.prewarm(mRecyclerView, adapter);
+		}
+		
+		if (mIsCircular) {
+			scrollToCircularStart();
+		}
+	}
+	
+	/**
+	 * 他のピッカーとViewHolderのプールを共有する<br />
+	 * 画面から外れた項目のViewHolderは共有のプールに返され、他のピッカーでも使い回される
+	 * @param pool	共有するプール
+	 */
+	@SuppressWarnings("unused")
+	public void setViewPool(PickerViewPool pool) {
+		mViewPool = pool;
+		mRecyclerView.setRecycledViewPool(pool.getPool());
+		
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		if (adapter != null) {
+			pool.prewarm(mRecyclerView, adapter);
+		}
+	}
+	
+	/**
+	 * 項目を循環させるかをセットする<br />
+	 * 時や分、角度のように一周すると先頭に戻る値を選ぶ場合に使う。選択した位置は循環させない場合と同じく実際の項目の位置で通知される
+	 * @param circular	項目を循環させるならtrue
+	 */
+	@SuppressWarnings("unused")
+	public void setCircular(boolean circular) {
+		if (mIsCircular == circular) {
+			return;
+		}
+		mIsCircular = circular;
+		
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		if (adapter != null) {
+			adapter.setCircular(circular);
+			adapter.notifyDataSetChanged();
+			
+			if (circular) {
+				scrollToCircularStart();
+			} else {
+				mRecyclerView.scrollToPosition(0);
+			}
+		}
+	}
+	
+	/**
+	 * 中央から離れた項目を縮小・半透明にする割合をセットする。0なら変化させない
+	 * @param scaleFalloff	中央から項目1つ分離れるごとに縮小する割合
+	 * @param alphaFalloff	中央から項目1つ分離れるごとに透明にする割合
+	 */
+	@SuppressWarnings("unused")
+	public void setFalloff(float scaleFalloff, float alphaFalloff) {
+		mLayoutManager.setFalloff(scaleFalloff, alphaFalloff);
+	}
+	
+	/**
+	 * positionの位置にある項目が中央に来るようにスクロールする。OnSelectListenerには通知しない
+	 * @param position	中央に表示する項目の位置。循環モードでは範囲の中ほどにあるその項目に移動する
+	 */
+	@SuppressWarnings("unused")
+	public void scrollToPosition(int position) {
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		if (adapter == null) {
+			return;
+		}
+		
+		mLayoutManager.scrollToPosition(mIsCircular ? adapter.getCircularStartPosition() + position : position);
+		mCurrentPosition = position;
+	}
+	
+	private void dispatchPositionChanged() {
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		if (mPositionListener == null || adapter == null || adapter.getItemCount() == 0) {
+			return;
+		}
+		
+		// 項目の幅はすべて同じなので、位置はスクロール量を幅で割るだけで求まる
+		// 循環モードの大きなスクロール量はfloatでは精度が足りないので、先に1周分の余りを取っておく
+		long offset = mLayoutManager.getScrollOffset();
+		if (mIsCircular) {
+			offset %= (long)adapter.getRealItemCount() * mItemWidth;
+		}
+		
+		float position = offset / (float)mItemWidth;
+		if (position != mLastPosition) {
+			mLastPosition = position;
+			mPositionListener.onPositionChanged(position);
+		}
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		
+		removeCallbacks(mPositionDispatcher);
+		mIsPositionDispatchPosted = false;
+	}
+	
+	/**
+	 * 循環モードで、範囲の中ほどにある先頭の項目が中央に来るようにスクロールする
+	 */
+	private void scrollToCircularStart() {
+		RecyclerHorizontalPickerAdapter adapter = (RecyclerHorizontalPickerAdapter)mRecyclerView.getAdapter();
+		
+		mLayoutManager.scrollToPosition(adapter.getCircularStartPosition());
+		mCurrentPosition = 0;
 	}
 	
 	public void setListener(OnSelectListener listener) {
 		mListener = listener;
 	}
+	
+	/**
+	 * スクロール中の位置を通知するリスナをセットする<br />
+	 * 位置は項目の中央が画面の中央にあるとき整数になり、隣の項目との間は小数になる。循環モードでは0以上項目の数未満の値になる
+	 * @param listener	スクロール中の位置を通知するリスナ
+	 */
+	@SuppressWarnings("unused")
+	public void setOnPositionChangeListener(OnPositionChangeListener listener) {
+		mPositionListener = listener;
+		mLastPosition = Float.NaN;
+	}
+	
+	/**
+	 * 選択された位置をUIスレッド以外に伝播するためのリングバッファをセットする<br />
+	 * 値を選択するたびに(時刻, 位置, 0)が書き込まれる
+	 * @param stream	選択された位置を書き込むリングバッファ。nullなら書き込まない
+	 */
+	public void setEventStream(ValueEventStream stream) {
+		mEventStream = stream;
+	}
 }
@@ -2,8 +2,10 @@ package jp.onetake.widget;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -11,9 +13,16 @@ import android.widget.TextView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RecyclerHorizontalPickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
-	class ItemViewHolder extends RecyclerView.ViewHolder {
+	// 項目のViewHolderの種類。空白の項目をなくしたので1種類だけ
+	static final int ITEM_VIEW_TYPE = 0;
+	
+	// 複数のピッカーでプールを共有しても使い回せるよう、アダプタに依存しないようにしておく
+	static class ItemViewHolder extends RecyclerView.ViewHolder {
 		View view;
 		TextView textView;
 		ImageView imageView;
@@ -27,107 +36,531 @@ public class RecyclerHorizontalPickerAdapter extends RecyclerView.Adapter<Recycl
 		}
 	}
 	
-	class BlankViewHolder extends RecyclerView.ViewHolder {
-		View view;
+	/**
+	 * ピッカーの項目<br />
+	 * submitListで項目を入れ替える場合は、同じ項目には入れ替えの前後で同じIDを付けておく
+	 */
+	public static class ViewItem {
+		final long id;
+		final String text;
+		final Bitmap bitmap;
+		final PickerImageSource image;	// 表示する大きさに合わせて後からデコードする画像
 		
-		BlankViewHolder(View view) {
-			super(view);
-			
-			this.view = view;
+		public ViewItem(long id, String text) {
+			this(id, text, null, null);
+		}
+		
+		public ViewItem(long id, Bitmap bitmap) {
+			this(id, null, bitmap, null);
+		}
+		
+		public ViewItem(long id, PickerImageSource image) {
+			this(id, null, null, image);
+		}
+		
+		private ViewItem(long id, String text, Bitmap bitmap, PickerImageSource image) {
+			this.id = id;
+			this.text = text;
+			this.bitmap = bitmap;
+			this.image = image;
+		}
+		
+		/**
+		 * @return	表示する内容がotherと同じならtrue
+		 */
+		boolean hasSameContents(ViewItem other) {
+			if (text != null ? !text.equals(other.text) : other.text != null) {
+				return false;
+			}
+			if (bitmap != other.bitmap) {
+				return false;
+			}
+			if (image == null || other.image == null) {
+				return image == other.image;
+			}
+			return image.getKey().equals(other.image.getKey());
+		}
+	}
+	
+	/**
+	 * submitListで渡された新旧の項目のリストを比べるためのコールバック
+	 */
+	private static class ItemDiffCallback extends DiffUtil.Callback {
+		private final List<ViewItem> mOldList;
+		private final List<ViewItem> mNewList;
+		
+		ItemDiffCallback(List<ViewItem> oldList, List<ViewItem> newList) {
+			mOldList = oldList;
+			mNewList = newList;
+		}
+		
+		@Override
+		public int getOldListSize() {
+			return mOldList.size();
+		}
+		
+		@Override
+		public int getNewListSize() {
+			return mNewList.size();
+		}
+		
+		@Override
+		public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+			return mOldList.get(oldItemPosition).id == mNewList.get(newItemPosition).id;
+		}
+		
+		@Override
+		public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+			return mOldList.get(oldItemPosition).hasSameContents(mNewList.get(newItemPosition));
 		}
 	}
 	
-	private class ViewItem {
-		String text = null;
-		Bitmap bitmap = null;
+	/**
+	 * ページの読み込みが終わったときに、変更の通知に付けるペイロード<br />
+	 * 循環モードではすべての位置を通知するので、そのページに含まれない項目の結び付け直しはこれを見て省く
+	 */
+	private static class PageRange {
+		final int start;
+		final int count;
+		
+		PageRange(int start, int count) {
+			this.start = start;
+			this.count = count;
+		}
+		
+		boolean contains(int realPosition) {
+			return realPosition >= start && realPosition < start + count;
+		}
 	}
 	
-	private static final int ITEM_VIEW_TYPE_BLANK	= 0;
-	private static final int ITEM_VIEW_TYPE_NORMAL	= 1;
+	// 循環モードでRecyclerViewに見せる項目の数。実際の項目の数で割った余りを実際の位置として扱う
+	private static final int CIRCULAR_ITEM_COUNT	= Integer.MAX_VALUE / 2;
+	// スクロールしていく先の、画面の端より外にある項目の画像をこの数だけ先読みしておく
+	private static final int PREFETCH_ITEMS			= 3;
+	// 画面に入る分のほかに結び付けられる項目の数。配置で両端に1つずつ余分に置く分、
+	// RecyclerViewが画面外に結び付けたまま持っておく分(デフォルトで2つ)、先読みの分
+	private static final int VIEW_CACHE_ITEMS		= 2 + 2 + PREFETCH_ITEMS;
 	
-	private Context mContext;
+	// submitListで渡されたリストの差分は、すべてのアダプタで共有するワーカースレッドで計算する
+	private static final ExecutorService DIFF_EXECUTOR =
+			Executors.newSingleThreadExecutor(new BackgroundThreadFactory("RecyclerHorizontalPickerAdapter"));
+	
+	private PickerItemViewFactory mViewFactory;
 	private List<ViewItem> mItemList;
 	private int mItemWidth;
-	private int mBlankWidth = 300;
+	private boolean mIsCircular;
+	private PickerPageLoader<?> mPageLoader;	// データソースをセットした場合の、ページの読み込み元
+	private RecyclerView mRecyclerView;
+	private Handler mHandler;
+	private long mNextId;			// addで追加した項目に振るID
+	private int mListGeneration;	// 項目のリストや位置の対応が変わった回数。古いリストの差分の結果を捨てるのに使う
+	private List<ViewItem> mPendingList;	// 差分を計算中の、submitListで渡されたリスト。なければnull
+	
+	private ArrayList<Future<?>> mPrefetches;	// まだ終わっていないかもしれない画像の先読み
+	private int mPrefetchEdge;					// 前回先読みしたときの、スクロールしていく側の端の位置
+	private int mPrefetchDirection;				// 前回先読みしたときのスクロールの向き。1なら右、-1なら左
+	
+	// スクロールの向きに合わせて、これから画面に入ってくる項目の画像を先読みする
+	private RecyclerView.OnScrollListener mPrefetchListener = new RecyclerView.OnScrollListener() {
+		@Override
+		public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+			if (dx != 0) {
+				prefetchImages((dx > 0) ? 1 : -1);
+			}
+		}
+	};
 	
 	public RecyclerHorizontalPickerAdapter(Context context) {
-		mContext = context;
-
-		// 先頭と末尾の空白部分を先に埋める
+		mViewFactory = new PickerItemViewFactory(context);
 		mItemList = new ArrayList<>();
-		mItemList.add(new ViewItem());
-		mItemList.add(new ViewItem());
+		mHandler = new Handler(Looper.getMainLooper());
+		mPrefetches = new ArrayList<>();
+		mPrefetchEdge = RecyclerView.NO_POSITION;
+		
+		setHasStableIds(true);
+	}
+	
+	/**
+	 * 項目のViewを作るファクトリをセットする<br />
+	 * 作り溜めておいたViewを使ったり、複数のピッカーで同じファクトリを共有したりする場合に使う
+	 * @param factory	項目のViewを作るファクトリ
+	 */
+	public void setItemViewFactory(PickerItemViewFactory factory) {
+		mViewFactory = factory;
 	}
 	
 	public void setItemWidth(int itemWidth) {
 		mItemWidth = itemWidth;
 	}
 	
-	public void setBlankWidth(int blankWidth) {
-		mBlankWidth = blankWidth;
+	int getItemWidth() {
+		return mItemWidth;
 	}
 	
-	public void add(String text) {
-		ViewItem item = new ViewItem();
-		item.text = text;
+	/**
+	 * 項目を循環させるかをセットする<br />
+	 * trueにすると非常に大きな位置の範囲を、実際の項目の数で割った余りで項目に対応させる。
+	 * 項目を複製するわけではないので、メモリやViewHolderの数は増えない
+	 * @param circular	項目を循環させるならtrue
+	 */
+	void setCircular(boolean circular) {
+		applyPendingList();
+		mIsCircular = circular;
+	}
+	
+	/**
+	 * 項目をリストに持たせる代わりに、データソースから必要な分だけ読み込むようにする<br />
+	 * セットするとaddで追加した項目は表示されなくなる。nullをセットすると元に戻る
+	 * @param source	項目を供給するデータソース
+	 */
+	public <P> void setDataSource(PickerDataSource<P> source) {
+		applyPendingList();
+		
+		if (mPageLoader != null) {
+			mPageLoader.release();
+			mPageLoader = null;
+		}
+		
+		if (source != null) {
+			mPageLoader = new PickerPageLoader<>(source, new PickerPageLoader.Listener() {
+				@Override
+				public void onPageLoaded(int start, int count) {
+					notifyPageChanged(start, count);
+				}
+				
+				@Override
+				public void onPageFailed(int start, int count) {
+					// 空のまま表示されている項目を結び付け直させ、そこでページを読み込み直す
+					notifyPageChanged(start, count);
+				}
+			});
+		}
 		
-		mItemList.add(mItemList.size() - 1, item);
+		notifyDataSetChanged();
+	}
+	
+	/**
+	 * ページに含まれる項目の変更を通知する<br />
+	 * 表示中のものだけでなく、キャッシュや先読みで結び付けられたまま画面外にあるViewHolderも空のまま残さないよう、
+	 * ページに対応するアダプタ上の位置をすべて通知する。
+	 * 循環モードでは同じ項目が周回ごとに現れるので、全体を1回で通知し、ページに含まれない項目はペイロードを見て結び付け直さない
+	 */
+	private void notifyPageChanged(int start, int count) {
+		PageRange range = new PageRange(start, count);
+		if (mIsCircular) {
+			notifyItemRangeChanged(0, getItemCount(), range);
+		} else {
+			notifyItemRangeChanged(start, count, range);
+		}
+	}
+	
+	@Override
+	public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+		super.onAttachedToRecyclerView(recyclerView);
+		
+		mRecyclerView = recyclerView;
+		mRecyclerView.addOnScrollListener(mPrefetchListener);
+	}
+	
+	@Override
+	public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+		super.onDetachedFromRecyclerView(recyclerView);
+		
+		recyclerView.removeOnScrollListener(mPrefetchListener);
+		cancelPrefetches();
+		mRecyclerView = null;
+	}
+	
+	/**
+	 * @return	循環モードでも増やさない、実際の項目の数
+	 */
+	int getRealItemCount() {
+		return (mPageLoader != null) ? mPageLoader.getCount() : mItemList.size();
+	}
+	
+	/**
+	 * RecyclerView上の位置を実際の項目の位置に直す。循環モードでは余りを取る
+	 * @param position	RecyclerView上の位置
+	 * @return			実際の項目の位置
+	 */
+	int getRealPosition(int position) {
+		return mIsCircular ? position % getRealItemCount() : position;
+	}
+	
+	/**
+	 * 循環モードで最初に中央に置く位置を返す。前後どちらにも十分スクロールできるよう、範囲の中ほどにある先頭の項目を選ぶ
+	 * @return	RecyclerView上の位置
+	 */
+	int getCircularStartPosition() {
+		int realCount = getRealItemCount();
+		if (realCount == 0) {
+			return 0;
+		}
+		
+		int middle = CIRCULAR_ITEM_COUNT / 2;
+		return middle - middle % realCount;
+	}
+	
+	public void add(String text) {
+		applyPendingList();
+		mItemList.add(new ViewItem(mNextId++, text));
 	}
 	
 	public void add(Bitmap bitmap) {
-		ViewItem item = new ViewItem();
-		item.bitmap = bitmap;
+		applyPendingList();
+		mItemList.add(new ViewItem(mNextId++, bitmap));
+	}
+	
+	/**
+	 * 画像の取得元を指定して項目を追加する。画像は表示する大きさに合わせて、表示するときにデコードされる
+	 * @param image	項目に表示する画像の取得元
+	 */
+	public void add(PickerImageSource image) {
+		applyPendingList();
+		mItemList.add(new ViewItem(mNextId++, image));
+	}
+	
+	/**
+	 * 項目のリストや位置の対応を変える前に呼び出す<br />
+	 * 計算中の差分は変わる前のアダプタに対するものなので捨て、submitListで渡されたリストは差分を使わずにそのまま反映する
+	 */
+	private void applyPendingList() {
+		mListGeneration++;
 		
-		mItemList.add(mItemList.size() - 1, item);
+		if (mPendingList != null) {
+			mItemList = mPendingList;
+			mPendingList = null;
+			notifyDataSetChanged();
+		}
+	}
+	
+	/**
+	 * 項目のリストを入れ替える<br />
+	 * 新旧のリストの差分はワーカースレッドで計算し、UIスレッドで追加・削除・移動・変更のあった項目だけを通知する。
+	 * 差分の計算中に次のリストが渡された場合、前のリストの結果は捨てる。
+	 * 差分の計算中にaddやsetDataSourceなどが呼ばれた場合は、差分を使わずにその時点でリストを入れ替える
+	 * @param items	新しい項目のリスト。同じ項目には前のリストと同じIDを付けておく
+	 */
+	@SuppressWarnings("unused")
+	public void submitList(List<ViewItem> items) {
+		final int generation = ++mListGeneration;
+		final List<ViewItem> oldList = new ArrayList<>(mItemList);
+		final List<ViewItem> newList = new ArrayList<>(items);
+		
+		// 循環モードやデータソースを使う場合は、アダプタ上の位置と項目の位置が一致しないので差分を通知できない
+		if (mIsCircular || mPageLoader != null || oldList.isEmpty() || newList.isEmpty()) {
+			mPendingList = null;
+			mItemList = newList;
+			notifyDataSetChanged();
+			return;
+		}
+		
+		mPendingList = newList;
+		
+		DIFF_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new ItemDiffCallback(oldList, newList), true);
+				
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation != mListGeneration) {
+							return;
+						}
+						
+						mPendingList = null;
+						mItemList = newList;
+						
+						// 位置ごとの差分を通知できるのは、アダプタ上の位置と項目の位置が一致している場合だけ
+						if (mIsCircular || mPageLoader != null) {
+							notifyDataSetChanged();
+						} else {
+							result.dispatchUpdatesTo(RecyclerHorizontalPickerAdapter.this);
+						}
+					}
+				});
+			}
+		});
 	}
 	
 	@Override
 	public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-		if (viewType == ITEM_VIEW_TYPE_BLANK) {
-			return new BlankViewHolder(
-					LayoutInflater.from(mContext).inflate(R.layout.view_picker_blank_item, parent, false));
+		return new ItemViewHolder(mViewFactory.obtain(parent));
+	}
+	
+	@Override
+	public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+		// ページの読み込みの通知だけなら、そのページに含まれる項目だけを結び付け直す
+		if (!payloads.isEmpty()) {
+			int realPosition = getRealPosition(position);
+			boolean changed = false;
+			for (Object payload : payloads) {
+				if (!(payload instanceof PageRange) || ((PageRange)payload).contains(realPosition)) {
+					changed = true;
+					break;
+				}
+			}
+			
+			if (!changed) {
+				return;
+			}
 		}
 		
-		return new ItemViewHolder(
-				LayoutInflater.from(mContext).inflate(R.layout.view_picker_item, parent, false));
+		onBindViewHolder(holder, position);
 	}
 	
 	@Override
 	public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
-		if (getItemViewType(position) == ITEM_VIEW_TYPE_NORMAL) {
-			RecyclerHorizontalPickerAdapter.ItemViewHolder viewHolder = (RecyclerHorizontalPickerAdapter.ItemViewHolder)holder;
-			
-			viewHolder.view.setTag(position - 1);
-			viewHolder.view.getLayoutParams().width = mItemWidth;
-			
-			ViewItem item = mItemList.get(position);
+		RecyclerHorizontalPickerAdapter.ItemViewHolder viewHolder = (RecyclerHorizontalPickerAdapter.ItemViewHolder)holder;
+		
+		int realPosition = getRealPosition(position);
+		
+		viewHolder.view.getLayoutParams().width = mItemWidth;
+		
+		PickerBitmapCache.getInstance().cancel(viewHolder.imageView);
+		if (mPageLoader != null) {
+			// 先読みやキャッシュで結び付けられる分も含め、同時に使われる項目のページがすべてキャッシュに収まるようにする
+			if (mRecyclerView != null && mItemWidth > 0) {
+				mPageLoader.ensureCapacity(mRecyclerView.getWidth() / mItemWidth + VIEW_CACHE_ITEMS);
+			}
 			
-			if (item.text != null) {
-				viewHolder.textView.setText(item.text);
-				viewHolder.textView.setVisibility(View.VISIBLE);
-				viewHolder.imageView.setVisibility(View.INVISIBLE);
+			if (mPageLoader.isLoaded(realPosition)) {
+				CharSequence text = mPageLoader.getText(realPosition);
+				bindItem(viewHolder, text, null, (text == null) ? mPageLoader.getImage(realPosition) : null);
 			} else {
-				viewHolder.imageView.setImageBitmap(item.bitmap);
+				// 読み込み中のページの項目は、読み込みが終わるまで空にしておく
 				viewHolder.textView.setVisibility(View.INVISIBLE);
-				viewHolder.imageView.setVisibility(View.VISIBLE);
+				viewHolder.imageView.setVisibility(View.INVISIBLE);
 			}
 		} else {
-			RecyclerHorizontalPickerAdapter.BlankViewHolder viewHolder = (RecyclerHorizontalPickerAdapter.BlankViewHolder)holder;
-			viewHolder.view.setTag(null);
-			viewHolder.view.getLayoutParams().width = mBlankWidth;
+			ViewItem item = mItemList.get(realPosition);
+			bindItem(viewHolder, item.text, item.bitmap, item.image);
+		}
+	}
+	
+	private void bindItem(ItemViewHolder viewHolder, CharSequence text, Bitmap bitmap, PickerImageSource image) {
+		if (text != null) {
+			viewHolder.textView.setText(text);
+			viewHolder.textView.setVisibility(View.VISIBLE);
+			viewHolder.imageView.setVisibility(View.INVISIBLE);
+		} else {
+			if (image != null) {
+				// デコードはワーカースレッドで行うので、ここで待つことはない
+				PickerBitmapCache.getInstance().load(image, mItemWidth, getImageHeight(), viewHolder.imageView);
+			} else {
+				viewHolder.imageView.setImageBitmap(bitmap);
+			}
+			viewHolder.textView.setVisibility(View.INVISIBLE);
+			viewHolder.imageView.setVisibility(View.VISIBLE);
 		}
 	}
 	
+	/**
+	 * 画像をデコードする高さを返す。先読みした画像を表示するときにも使えるよう、項目のViewではなくRecyclerViewから求める
+	 */
+	private int getImageHeight() {
+		if (mRecyclerView != null && mRecyclerView.getHeight() > 0) {
+			return mRecyclerView.getHeight() - mRecyclerView.getPaddingTop() - mRecyclerView.getPaddingBottom();
+		}
+		return mItemWidth;
+	}
+	
+	/**
+	 * 画面に出ている項目のうちスクロールしていく側の端から先にある項目の画像を、キャッシュに読み込んでおく<br />
+	 * 端の項目が変わらないうちは何もせず、向きが変わったら前の向きの先読みは取り消す。
+	 * データソースを使う場合は、読み込み済みのページにある項目だけを先読みする
+	 * @param direction	スクロールの向き。1なら右、-1なら左
+	 */
+	private void prefetchImages(int direction) {
+		int childCount = mRecyclerView.getChildCount();
+		if (childCount == 0) {
+			return;
+		}
+		
+		// 子はいつも位置の順に並んでいる
+		View edgeChild = mRecyclerView.getChildAt((direction > 0) ? childCount - 1 : 0);
+		int edge = mRecyclerView.getChildAdapterPosition(edgeChild);
+		if (edge == RecyclerView.NO_POSITION || (edge == mPrefetchEdge && direction == mPrefetchDirection)) {
+			return;
+		}
+		
+		if (direction != mPrefetchDirection) {
+			cancelPrefetches();
+		}
+		mPrefetchEdge = edge;
+		mPrefetchDirection = direction;
+		
+		// 終わったものは持っておく必要がない
+		for (int i = mPrefetches.size() - 1 ; i >= 0 ; i--) {
+			if (mPrefetches.get(i).isDone()) {
+				mPrefetches.remove(i);
+			}
+		}
+		
+		int height = getImageHeight();
+		for (int i = 1 ; i <= PREFETCH_ITEMS ; i++) {
+			int position = edge + direction * i;
+			if (position < 0 || position >= getItemCount()) {
+				break;
+			}
+			
+			PickerImageSource image = getImage(getRealPosition(position));
+			if (image != null) {
+				Future<?> future = PickerBitmapCache.getInstance().prefetch(image, mItemWidth, height);
+				if (future != null) {
+					mPrefetches.add(future);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return	realPositionの位置にある項目の、後からデコードする画像。なければnull
+	 */
+	private PickerImageSource getImage(int realPosition) {
+		if (mPageLoader != null) {
+			if (!mPageLoader.isLoaded(realPosition) || mPageLoader.getText(realPosition) != null) {
+				return null;
+			}
+			return mPageLoader.getImage(realPosition);
+		}
+		return mItemList.get(realPosition).image;
+	}
+	
+	private void cancelPrefetches() {
+		for (Future<?> future : mPrefetches) {
+			future.cancel(false);
+		}
+		mPrefetches.clear();
+		mPrefetchEdge = RecyclerView.NO_POSITION;
+		mPrefetchDirection = 0;
+	}
+	
+	@Override
+	public void onViewRecycled(RecyclerView.ViewHolder holder) {
+		super.onViewRecycled(holder);
+		
+		// プールに戻ったViewHolderの読み込みは、まだ始まっていなければデコードせずに済ませる
+		ItemViewHolder viewHolder = (ItemViewHolder)holder;
+		PickerBitmapCache.getInstance().cancel(viewHolder.imageView);
+		viewHolder.imageView.setImageBitmap(null);
+	}
+	
 	@Override
-	public int getItemViewType(int position) {
-		if (position == 0 || position == mItemList.size() - 1) {
-			return ITEM_VIEW_TYPE_BLANK;
+	public long getItemId(int position) {
+		// 循環モードでは同じ項目が何度も現れ、データソースを使う場合は項目ごとのIDがないので、位置をIDにする
+		if (mIsCircular || mPageLoader != null) {
+			return position;
 		}
-		return ITEM_VIEW_TYPE_NORMAL;
+		return mItemList.get(position).id;
 	}
 	
 	@Override
 	public int getItemCount() {
-		return mItemList.size();
+		if (mIsCircular) {
+			return (getRealItemCount() > 0) ? CIRCULAR_ITEM_COUNT : 0;
+		}
+		return getRealItemCount();
 	}
 }
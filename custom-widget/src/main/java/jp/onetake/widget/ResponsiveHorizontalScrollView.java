@@ -16,37 +16,34 @@ public class ResponsiveHorizontalScrollView extends HorizontalScrollView {
 		void onScrollEnded(ResponsiveHorizontalScrollView scrollView);
 	}
 	
-	private class ScrollChecker implements Runnable {
-		// 指が離れてからスクロールが継続されているかチェックするまでの時間(msec)
-		// 50msecくらいでいい気もするが少し余裕を持たせる。100だと操作してて違和感があるのでそこまで大きくするべきではない
-		private static final int DELAY_SCROLL_CHECK = 60;
-		
-		private int mLatestX;
-		
-		void check() {
-			mLatestX = getScrollX();
-			ResponsiveHorizontalScrollView.this.postDelayed(this, DELAY_SCROLL_CHECK);
-		}
-		
-		@Override
-		public void run() {
-			int position = getScrollX();
-			
-			if (mLatestX - position == 0) {
-				if (mListener != null) {
-					mListener.onScrollEnded(ResponsiveHorizontalScrollView.this);
-				}
-			} else {
-				if (mListener != null) {
-					mListener.onScroll(ResponsiveHorizontalScrollView.this);
-				}
-				checkScroll();
-			}
-		}
+	/**
+	 * スクロールの状態が変わったことを受け取るリスナ
+	 */
+	public interface OnScrollStateChangeListener {
+		/**
+		 * スクロールの状態が変わったときに呼ばれる
+		 * @param scrollView	状態が変わったスクロールビュー
+		 * @param newState		SCROLL_STATE_IDLE、SCROLL_STATE_DRAGGING、SCROLL_STATE_SETTLINGのいずれか
+		 */
+		void onScrollStateChanged(ResponsiveHorizontalScrollView scrollView, int newState);
 	}
 	
-	private ScrollChecker mChecker;
+	/** スクロールしていない */
+	public static final int SCROLL_STATE_IDLE		= 0;
+	/** 指で操作している */
+	public static final int SCROLL_STATE_DRAGGING	= 1;
+	/** 指を離した後、慣性スクロールなどで動いている */
+	public static final int SCROLL_STATE_SETTLING	= 2;
+	
+	// 慣性スクロール中に、位置が変わらないフレームがこの数だけ続いたら止まったとみなす
+	// 終わり際の遅い動きでは同じピクセルのままのフレームが挟まるので、1フレームだけでは判断しない
+	private static final int IDLE_FRAMES	= 3;
+	
 	private OnScrollChangedListener mListener;
+	private OnScrollStateChangeListener mStateListener;
+	private int mScrollState;
+	private int mLastFrameX;		// SETTLING中、直前のフレームでのスクロール位置
+	private int mUnchangedFrames;	// SETTLING中、位置が変わらなかったフレームが続いた数
 	
 	public ResponsiveHorizontalScrollView(Context context) {
 		this(context, null);
@@ -54,28 +51,104 @@ public class ResponsiveHorizontalScrollView extends HorizontalScrollView {
 	
 	public ResponsiveHorizontalScrollView(Context context, AttributeSet attrs) {
 		super(context, attrs);
-
-		mChecker = new ScrollChecker();
+		
+		mScrollState = SCROLL_STATE_IDLE;
 	}
 	
 	@Override
 	public boolean dispatchTouchEvent(MotionEvent ev) {
-		if (ev.getAction() == MotionEvent.ACTION_UP) {
-			checkScroll();
-		} else if (ev.getAction() == MotionEvent.ACTION_MOVE) {
-			if (mListener != null) {
-				mListener.onScroll(this);
-			}
+		boolean handled = super.dispatchTouchEvent(ev);
+		
+		switch (ev.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				setScrollState(SCROLL_STATE_DRAGGING);
+				break;
+			case MotionEvent.ACTION_UP:
+			case MotionEvent.ACTION_CANCEL:
+				// 慣性スクロールが始まったかどうかは、次のフレームのcomputeScrollで判断する
+				mLastFrameX = getScrollX();
+				mUnchangedFrames = 0;
+				setScrollState(SCROLL_STATE_SETTLING);
+				postInvalidateOnAnimation();
+				break;
+		}
+		
+		return handled;
+	}
+	
+	@Override
+	public void computeScroll() {
+		super.computeScroll();
+		
+		if (mScrollState != SCROLL_STATE_SETTLING) {
+			return;
+		}
+		
+		// 位置が変わらないフレームが続いたところで止まったとみなす
+		int x = getScrollX();
+		if (x != mLastFrameX) {
+			mLastFrameX = x;
+			mUnchangedFrames = 0;
+		} else if (++mUnchangedFrames >= IDLE_FRAMES) {
+			setScrollState(SCROLL_STATE_IDLE);
+			return;
 		}
 		
-		return super.dispatchTouchEvent(ev);
+		// スクローラが止まっているとフレームが来なくなるので、数え終わるまで次のフレームを要求する
+		postInvalidateOnAnimation();
+	}
+	
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		
+		// 指を離した後の慣性スクロールやsmoothScrollByによるスクロールも、位置が変わるたびに通知する
+		if (mListener != null) {
+			mListener.onScroll(this);
+		}
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		
+		// 画面から外れるとフレームが来なくなるので、状態だけ戻しておく
+		mScrollState = SCROLL_STATE_IDLE;
 	}
 	
 	public void setListener(OnScrollChangedListener listener) {
 		mListener = listener;
 	}
 	
-	private void checkScroll() {
-		mChecker.check();
+	/**
+	 * スクロールの状態が変わったことを受け取るリスナをセットする
+	 * @param listener	スクロールの状態が変わったことを受け取るリスナ
+	 */
+	@SuppressWarnings("unused")
+	public void setOnScrollStateChangeListener(OnScrollStateChangeListener listener) {
+		mStateListener = listener;
+	}
+	
+	/**
+	 * @return	現在のスクロールの状態。SCROLL_STATE_IDLE、SCROLL_STATE_DRAGGING、SCROLL_STATE_SETTLINGのいずれか
+	 */
+	@SuppressWarnings("unused")
+	public int getScrollState() {
+		return mScrollState;
+	}
+	
+	private void setScrollState(int state) {
+		if (mScrollState == state) {
+			return;
+		}
+		
+		mScrollState = state;
+		
+		if (mStateListener != null) {
+			mStateListener.onScrollStateChanged(this, state);
+		}
+		if (mListener != null && state == SCROLL_STATE_IDLE) {
+			mListener.onScrollEnded(this);
+		}
 	}
 }
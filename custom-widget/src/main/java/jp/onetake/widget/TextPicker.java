@@ -0,0 +1,318 @@
+package jp.onetake.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文字列だけを並べる横方向へのピッカー<br />
+ * HorizontalPickerと違って項目ごとのViewは作らず、画面に入っている項目の文字列だけをこのView自身が描画する。
+ * 文字列は中央揃えで描くので幅を測る必要もなく、項目の数によらず使うメモリは変わらない<br />
+ * 操作が終わると中央に近い項目にスナップし、その位置をOnSelectListenerに通知する
+ */
+public class TextPicker extends View {
+	/**
+	 * ピッカーで値を選択したときにそのイベントを通知するリスナ
+	 */
+	public interface OnSelectListener {
+		void onSelect(int position);
+	}
+	
+	private static final int DEFAULT_ITEM_WIDTH		= 120;
+	private static final float DEFAULT_TEXT_SIZE_SP	= 20.0f;
+	// 慣性スクロールの残りの移動量がこれ未満になったら止める(px)。InertiaScrollerのデフォルトはラジアン向けで小さすぎる
+	private static final double STOP_THRESHOLD_PX	= 0.5;
+	
+	// 慣性スクロールの途中経過と終了を受け取るコールバック。公開APIにしないよう、Viewには実装させない
+	private InertiaScroller.Callback mInertiaCallback = new InertiaScroller.Callback() {
+		@Override
+		public void onInertiaUpdate(double displacement) {
+			mOffset = mInertiaBaseOffset + displacement;
+			invalidate();
+		}
+		
+		@Override
+		public void onInertiaEnd(double displacement) {
+			mOffset = mInertiaBaseOffset + displacement;
+			invalidate();
+			
+			// タップしただけなど、選択済みの項目に戻ってきただけなら通知しない
+			int position = (int)Math.round(mOffset / mItemWidth);
+			if (position == mSelectedPosition) {
+				return;
+			}
+			mSelectedPosition = position;
+			
+			if (mListener != null) {
+				mListener.onSelect(position);
+			}
+			if (mEventStream != null) {
+				mEventStream.offer(System.nanoTime(), position, 0);
+			}
+		}
+	};
+	
+	private List<? extends CharSequence> mItems;
+	private OnSelectListener mListener;
+	private ValueEventStream mEventStream;
+	
+	private Paint mTextPaint;
+	private int mItemWidth;
+	private float mBaselineOffset;		// 高さの中央から文字列のベースラインまでの距離
+	
+	private InertiaScroller mScroller;
+	private VelocityTracker mVelocityTracker;
+	private int mTouchSlop;
+	private int mMinimumFlingVelocity;
+	private int mMaximumFlingVelocity;
+	
+	private double mOffset;				// 先頭の項目が中央にあるときを0とした、スクロール量(px)
+	private double mInertiaBaseOffset;	// 慣性スクロールを始めたときのスクロール量
+	private int mSelectedPosition;		// 最後に選択された(中央に止まった)項目の位置
+	private float mDownX;
+	private float mLastX;
+	private boolean mIsDragging;
+	
+	public TextPicker(Context context) {
+		this(context, null);
+	}
+	
+	public TextPicker(Context context, @Nullable AttributeSet attrs) {
+		super(context, attrs);
+		
+		mItems = Collections.emptyList();
+		mItemWidth = DEFAULT_ITEM_WIDTH;
+		
+		mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		mTextPaint.setTextAlign(Paint.Align.CENTER);
+		mTextPaint.setColor(Color.BLACK);
+		mTextPaint.setTextSize(TypedValue.applyDimension(
+				TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP, context.getResources().getDisplayMetrics()));
+		
+		int backgroundColor = Color.WHITE;
+		
+		if (attrs != null) {
+			TypedArray array = context.obtainStyledAttributes(attrs, R.styleable.TextPicker);
+			
+			mItemWidth = array.getDimensionPixelSize(R.styleable.TextPicker_item_width, DEFAULT_ITEM_WIDTH);
+			backgroundColor = array.getColor(R.styleable.TextPicker_background_color, backgroundColor);
+			mTextPaint.setColor(array.getColor(R.styleable.TextPicker_text_color, Color.BLACK));
+			mTextPaint.setTextSize(array.getDimension(R.styleable.TextPicker_text_size, mTextPaint.getTextSize()));
+			
+			array.recycle();
+		}
+		
+		setBackgroundColor(backgroundColor);
+		updateBaselineOffset();
+		
+		mScroller = new InertiaScroller(mInertiaCallback);
+		mScroller.setStopThreshold(STOP_THRESHOLD_PX);
+		
+		ViewConfiguration configuration = ViewConfiguration.get(context);
+		mTouchSlop = configuration.getScaledTouchSlop();
+		mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+		mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+	}
+	
+	/**
+	 * ピッカーに表示する文字列をセットする。スクロール位置は先頭に戻る
+	 * @param items	ピッカーに表示する文字列
+	 */
+	@SuppressWarnings("unused")
+	public void setItems(List<? extends CharSequence> items) {
+		mScroller.cancel();
+		mItems = items;
+		mOffset = 0.0;
+		mSelectedPosition = 0;
+		
+		invalidate();
+	}
+	
+	@SuppressWarnings("unused")
+	public void setOnSelectListener(OnSelectListener listener) {
+		mListener = listener;
+	}
+	
+	/**
+	 * 選択された位置をUIスレッド以外に伝播するためのリングバッファをセットする<br />
+	 * 値を選択するたびに(時刻, 位置, 0)が書き込まれる
+	 * @param stream	選択された位置を書き込むリングバッファ。nullなら書き込まない
+	 */
+	@SuppressWarnings("unused")
+	public void setEventStream(ValueEventStream stream) {
+		mEventStream = stream;
+	}
+	
+	/**
+	 * 文字列の色をセットする
+	 * @param color	文字列の色
+	 */
+	@SuppressWarnings("unused")
+	public void setTextColor(int color) {
+		mTextPaint.setColor(color);
+		invalidate();
+	}
+	
+	/**
+	 * 文字列の大きさをセットする
+	 * @param size	文字列の大きさ(px)
+	 */
+	@SuppressWarnings("unused")
+	public void setTextSize(float size) {
+		mTextPaint.setTextSize(size);
+		updateBaselineOffset();
+		requestLayout();
+		invalidate();
+	}
+	
+	/**
+	 * positionの位置にある項目が中央に来るようにスクロールする。OnSelectListenerには通知しない
+	 * @param position	中央に表示する項目の位置
+	 */
+	@SuppressWarnings("unused")
+	public void scrollToPosition(int position) {
+		mScroller.cancel();
+		mOffset = clampOffset((double)position * mItemWidth);
+		mSelectedPosition = (int)Math.round(mOffset / mItemWidth);
+		
+		invalidate();
+	}
+	
+	/**
+	 * @return	現在中央にある項目の位置。項目がなければ-1
+	 */
+	@SuppressWarnings("unused")
+	public int getCenterPosition() {
+		return mItems.isEmpty() ? -1 : (int)Math.round(mOffset / mItemWidth);
+	}
+	
+	private void updateBaselineOffset() {
+		Paint.FontMetrics metrics = mTextPaint.getFontMetrics();
+		mBaselineOffset = -(metrics.ascent + metrics.descent) / 2.0f;
+	}
+	
+	private double clampOffset(double offset) {
+		double maxOffset = Math.max(0, mItems.size() - 1) * (double)mItemWidth;
+		return Math.max(0.0, Math.min(maxOffset, offset));
+	}
+	
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		// 高さが決まっていなければ、文字列の高さに上下の余白を加えた分にする
+		int desiredHeight = (int)Math.ceil(mTextPaint.getFontSpacing() * 2.0f) + getPaddingTop() + getPaddingBottom();
+		
+		setMeasuredDimension(
+				getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+				resolveSize(desiredHeight, heightMeasureSpec));
+	}
+	
+	@Override
+	protected void onDraw(Canvas canvas) {
+		super.onDraw(canvas);
+		
+		int count = mItems.size();
+		if (count == 0) {
+			return;
+		}
+		
+		float centerX = getWidth() / 2.0f;
+		float baseline = getHeight() / 2.0f + mBaselineOffset;
+		
+		// 画面の左端から右端までにかかる項目だけを描く
+		int first = Math.max(0, (int)Math.floor((mOffset - centerX) / mItemWidth));
+		int last = Math.min(count - 1, (int)Math.ceil((mOffset + centerX) / mItemWidth));
+		
+		for (int position = first ; position <= last ; position++) {
+			CharSequence text = mItems.get(position);
+			float x = (float)(centerX + (double)position * mItemWidth - mOffset);
+			canvas.drawText(text, 0, text.length(), x, baseline, mTextPaint);
+		}
+	}
+	
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (mItems.isEmpty()) {
+			return false;
+		}
+		
+		if (mVelocityTracker == null) {
+			mVelocityTracker = VelocityTracker.obtain();
+		}
+		mVelocityTracker.addMovement(event);
+		
+		switch (event.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				mScroller.cancel();
+				mDownX = event.getX();
+				mLastX = mDownX;
+				mIsDragging = false;
+				break;
+			case MotionEvent.ACTION_MOVE:
+				float x = event.getX();
+				if (!mIsDragging) {
+					if (Math.abs(x - mDownX) <= mTouchSlop) {
+						break;
+					}
+					mIsDragging = true;
+					getParent().requestDisallowInterceptTouchEvent(true);
+				}
+				
+				mOffset = clampOffset(mOffset - (x - mLastX));
+				mLastX = x;
+				invalidate();
+				break;
+			case MotionEvent.ACTION_UP:
+				mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+				float velocity = mVelocityTracker.getXVelocity();
+				settle((Math.abs(velocity) > mMinimumFlingVelocity) ? -velocity : 0.0);
+				
+				mVelocityTracker.clear();
+				break;
+			case MotionEvent.ACTION_CANCEL:
+				settle(0.0);
+				
+				mVelocityTracker.clear();
+				break;
+		}
+		
+		return true;
+	}
+	
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		
+		mScroller.cancel();
+		
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+		}
+	}
+	
+	/**
+	 * 初速velocityで投げたときに止まる位置から最も近い項目へ、慣性で移動させる
+	 * @param velocity	スクロール量が増える向きを正とした初速(px/sec)
+	 */
+	private void settle(double velocity) {
+		mIsDragging = false;
+		
+		double predicted = mOffset + mScroller.predictDistance(velocity);
+		double target = clampOffset(Math.round(predicted / mItemWidth) * (double)mItemWidth);
+		
+		mInertiaBaseOffset = mOffset;
+		mScroller.start(target - mOffset);
+	}
+}
@@ -0,0 +1,187 @@
+package jp.onetake.widget;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ホイールやピッカーの値の変化をUIスレッド以外に届けるためのリングバッファ<br />
+ * 書き込むのはUIスレッド(1つ)、読み出すのはワーカースレッド(1つ)のみという前提で、ロックを使わずに受け渡しを行う。
+ * イベントはプリミティブの配列に格納されるので、書き込み・読み出しのどちらでもオブジェクトの生成やHandlerのメッセージは発生しない<br />
+ * バッファが一杯のときに書き込まれたイベントは捨てられ、その数はgetDroppedCountで取得できる
+ */
+public class ValueEventStream {
+	/**
+	 * リングバッファから読み出したイベントを処理するためのコンシューマ。ワーカースレッドで呼び出される
+	 */
+	public interface Consumer {
+		/**
+		 * イベントを1つ処理する
+		 * @param timestampNanos	イベントが発生した時刻(System.nanoTime)
+		 * @param value				値。HorizontalWheelでは角度(度)、ピッカーでは選択された位置
+		 * @param state				状態。HorizontalWheelではHorizontalWheel.Stateのordinal、ピッカーでは常に0
+		 */
+		void onEvent(long timestampNanos, double value, int state);
+	}
+	
+	private final int mMask;
+	private final long[] mTimestamps;
+	private final double[] mValues;
+	private final int[] mStates;
+	
+	private final AtomicLong mHead;			// 次に読み出す位置。ワーカースレッドのみが更新する
+	private final AtomicLong mTail;			// 次に書き込む位置。UIスレッドのみが更新する
+	private volatile long mDroppedCount;	// 一杯で捨てたイベントの数。UIスレッドのみが更新する
+	
+	private volatile Thread mWorker;
+	// 待機に入る前にこれを立ててから書き込み位置を確かめ、書き込み側は書き込み位置を進めてからこれを見るので、起床を取りこぼすことはない
+	private volatile boolean mIsWaiting;
+	
+	/**
+	 * @param capacity	バッファに保持できるイベントの数。2のべき乗に切り上げられる
+	 */
+	public ValueEventStream(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		
+		mMask = size - 1;
+		mTimestamps = new long[size];
+		mValues = new double[size];
+		mStates = new int[size];
+		
+		mHead = new AtomicLong(0L);
+		mTail = new AtomicLong(0L);
+	}
+	
+	/**
+	 * イベントを書き込む。UIスレッドから呼び出す
+	 * @param timestampNanos	イベントが発生した時刻(System.nanoTime)
+	 * @param value				値
+	 * @param state				状態
+	 * @return	書き込めたらtrue。バッファが一杯で捨てた場合はfalse
+	 */
+	public boolean offer(long timestampNanos, double value, int state) {
+		long tail = mTail.get();
+		if (tail - mHead.get() > mMask) {
+			mDroppedCount++;
+			return false;
+		}
+		
+		int index = (int)(tail & mMask);
+		mTimestamps[index] = timestampNanos;
+		mValues[index] = value;
+		mStates[index] = state;
+		mTail.set(tail + 1);
+		
+		if (mIsWaiting) {
+			Thread worker = mWorker;
+			if (worker != null) {
+				LockSupport.unpark(worker);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 溜まっているイベントをまとめて読み出す。読み出し側のスレッドから呼び出す
+	 * @param consumer	イベントを処理するコンシューマ
+	 * @return	読み出したイベントの数
+	 */
+	public int drain(Consumer consumer) {
+		long head = mHead.get();
+		long tail = mTail.get();
+		
+		for (long i = head ; i < tail ; i++) {
+			int index = (int)(i & mMask);
+			consumer.onEvent(mTimestamps[index], mValues[index], mStates[index]);
+		}
+		mHead.set(tail);
+		
+		return (int)(tail - head);
+	}
+	
+	/**
+	 * 溜まっているイベントの数を得る
+	 */
+	public int size() {
+		return (int)(mTail.get() - mHead.get());
+	}
+	
+	/**
+	 * バッファが一杯で捨てたイベントの数を得る
+	 */
+	public long getDroppedCount() {
+		return mDroppedCount;
+	}
+	
+	/**
+	 * イベントを読み出すワーカースレッドを開始する<br />
+	 * ワーカースレッドはイベントが書き込まれるまで待機し、書き込まれたらまとめてconsumerに渡す
+	 * @param consumer	イベントを処理するコンシューマ
+	 */
+	public synchronized void start(final Consumer consumer) {
+		if (mWorker != null) {
+			throw new IllegalStateException("ValueEventStream is already started");
+		}
+		
+		Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Thread self = Thread.currentThread();
+				
+				while (mWorker == self) {
+					if (drain(consumer) == 0) {
+						mIsWaiting = true;
+						// 何もないのに戻ってくることがあるので、条件を確かめ直しながら待つ
+						while (mTail.get() == mHead.get() && mWorker == self) {
+							LockSupport.park(ValueEventStream.this);
+						}
+						mIsWaiting = false;
+					}
+				}
+			}
+		}, "ValueEventStream");
+		worker.setDaemon(true);
+		
+		mWorker = worker;
+		worker.start();
+	}
+	
+	/**
+	 * ワーカースレッドを停止する。溜まっているイベントは読み出されずに残る<br />
+	 * すぐにstartを呼んでも読み出し側が2つにならないよう、コンシューマが処理中のイベントを終えてワーカースレッドが止まるまで待つ。
+	 * コンシューマの中から呼んだ場合は待たずに戻り、そのイベントの処理を終えたところで止まる
+	 */
+	public synchronized void stop() {
+		Thread worker = mWorker;
+		if (worker == null) {
+			return;
+		}
+		
+		mWorker = null;
+		LockSupport.unpark(worker);
+		
+		if (worker == Thread.currentThread()) {
+			return;
+		}
+		
+		boolean interrupted = false;
+		while (worker.isAlive()) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				// 待ち終えてから割り込みの状態を戻す
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package jp.onetake.widget;
+
+import android.view.Choreographer;
+
+/**
+ * HorizontalWheelの角度の変化をリスナに届けるためのクラス<br />
+ * HorizontalWheel.DeliveryModeに従って、呼び出しの都度・1フレームに1回・目盛りが変わったときだけ・止まったときだけのいずれかで通知する
+ */
+class WheelEventDispatcher implements Choreographer.FrameCallback {
+	private HorizontalWheel.DeliveryMode mMode;
+	private HorizontalWheel.EventListener mListener;
+	private HorizontalWheel.OnTickChangeListener mTickListener;
+	
+	private double mLatestAngle;			// 最後に受け取った角度(度)
+	private double mDeliveredAngle;			// 最後に通知した角度(度)
+	private long mDeliveredTick;			// 最後に通知した目盛りの番号
+	private boolean mHasDeliveredTick;		// 目盛りの番号を一度でも通知したか
+	private boolean mIsFramePosted;			// 次のフレームでの通知を予約済みか
+	private FrameScheduler mScheduler;		// フレームコールバックの登録先
+	
+	WheelEventDispatcher() {
+		mMode = HorizontalWheel.DeliveryMode.EveryChange;
+		mDeliveredAngle = Double.NaN;
+		mScheduler = FrameScheduler.CHOREOGRAPHER;
+	}
+	
+	/**
+	 * フレームコールバックの登録先をセットする。予約済みの通知は取り消される
+	 * @param scheduler	フレームコールバックの登録先
+	 */
+	void setScheduler(FrameScheduler scheduler) {
+		cancel();
+		mScheduler = scheduler;
+	}
+	
+	void setMode(HorizontalWheel.DeliveryMode mode) {
+		cancel();
+		mMode = mode;
+	}
+	
+	void setListener(HorizontalWheel.EventListener listener) {
+		mListener = listener;
+	}
+	
+	void setTickListener(HorizontalWheel.OnTickChangeListener listener) {
+		mTickListener = listener;
+		mHasDeliveredTick = false;
+	}
+	
+	/**
+	 * ホイールの角度が変わったときに呼び出す
+	 * @param angle		角度(度)
+	 * @param tick		角度から最も近い目盛りの番号
+	 */
+	void onAngleChange(double angle, long tick) {
+		mLatestAngle = angle;
+		
+		switch (mMode) {
+			case EveryChange:
+				deliverAngle();
+				break;
+			case PerFrame:
+				if (!mIsFramePosted) {
+					mIsFramePosted = true;
+					mScheduler.postFrameCallback(this);
+				}
+				break;
+			case TickChange:
+				if (!mHasDeliveredTick || tick != mDeliveredTick) {
+					mDeliveredTick = tick;
+					mHasDeliveredTick = true;
+					
+					if (mTickListener != null) {
+						mTickListener.onTickChange(tick);
+					}
+				}
+				break;
+			case Settle:
+				// 止まるまでは何もしない
+				break;
+		}
+	}
+	
+	/**
+	 * ホイールが止まった(Idleになった)ときに呼び出す
+	 */
+	void onSettle() {
+		if (mMode == HorizontalWheel.DeliveryMode.Settle && mLatestAngle != mDeliveredAngle) {
+			deliverAngle();
+		}
+	}
+	
+	/**
+	 * 予約済みの通知を取り消す
+	 */
+	void cancel() {
+		if (mIsFramePosted) {
+			mScheduler.removeFrameCallback(this);
+			mIsFramePosted = false;
+		}
+	}
+	
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		mIsFramePosted = false;
+		deliverAngle();
+	}
+	
+	private void deliverAngle() {
+		mDeliveredAngle = mLatestAngle;
+		
+		if (mListener != null) {
+			mListener.onAngleChange(mLatestAngle);
+		}
+	}
+}
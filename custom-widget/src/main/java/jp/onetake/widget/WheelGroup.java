@@ -0,0 +1,193 @@
+package jp.onetake.widget;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * 複数のHorizontalWheelを連動して回転させるためのグループ<br />
+ * 各ホイールには比率を指定でき、あるホイールがΔθ回転すると、他のホイールはΔθ×(自分の比率/回したホイールの比率)だけ回転する。
+ * 例えば粗調整・微調整のホイールなら比率を1と10に、鏡像のホイールなら1と-1にすればいい<br />
+ * グループに属するホイールの慣性回転とDeliveryMode.PerFrameでの通知は、グループが持つ1つのフレームコールバックでまとめて処理される。
+ * 1フレームの中で、慣性回転の計算→他のホイールへの連動(再描画の要求)→リスナへの通知の順に行う
+ */
+public class WheelGroup implements Choreographer.FrameCallback {
+	/**
+	 * グループの値が変わったことを捕捉するためのリスナ。1フレームに1回だけ呼び出される
+	 */
+	public interface OnGroupChangeListener {
+		/**
+		 * グループの値が変わったときにその値を得る
+		 * @param angle	比率1のホイールに換算した回転角。ラジアンではない
+		 */
+		void onGroupChange(double angle);
+	}
+	
+	// グループのフレームコールバックにまとめるためのスケジューラ
+	private class GroupScheduler implements FrameScheduler {
+		private ArrayList<Choreographer.FrameCallback> mPending = new ArrayList<>();
+		private ArrayList<Choreographer.FrameCallback> mRunning = new ArrayList<>();
+		
+		@Override
+		public void postFrameCallback(Choreographer.FrameCallback callback) {
+			if (!mPending.contains(callback)) {
+				mPending.add(callback);
+			}
+			requestFrame();
+		}
+		
+		@Override
+		public void removeFrameCallback(Choreographer.FrameCallback callback) {
+			mPending.remove(callback);
+		}
+		
+		void run(long frameTimeNanos) {
+			// 実行中に登録されたコールバックは次のフレームで呼ぶ
+			ArrayList<Choreographer.FrameCallback> running = mPending;
+			mPending = mRunning;
+			mRunning = running;
+			
+			for (int i = 0 ; i < running.size() ; i++) {
+				running.get(i).doFrame(frameTimeNanos);
+			}
+			running.clear();
+		}
+	}
+	
+	private ArrayList<HorizontalWheel> mWheels;
+	private GroupScheduler mInertiaScheduler;		// 慣性回転のコールバック
+	private GroupScheduler mDeliveryScheduler;		// リスナへの通知のコールバック
+	private OnGroupChangeListener mListener;
+	
+	private double mValue;				// 比率1のホイールに換算した回転角(rad)
+	private boolean mIsValueChanged;	// 前回リスナに通知してから値が変わったか
+	private boolean mIsFramePosted;		// 次のフレームでのコールバックを予約済みか
+	private boolean mIsPropagating;		// 他のホイールに回転を伝えている最中か
+	
+	public WheelGroup() {
+		mWheels = new ArrayList<>();
+		mInertiaScheduler = new GroupScheduler();
+		mDeliveryScheduler = new GroupScheduler();
+	}
+	
+	/**
+	 * ホイールをグループに加える。すでに他のグループに属している場合はそこから外される
+	 * @param wheel	グループに加えるホイール
+	 * @param ratio	回転の比率。0は指定できない
+	 */
+	public void addWheel(HorizontalWheel wheel, double ratio) {
+		if (ratio == 0.0) {
+			throw new IllegalArgumentException("ratio must not be 0");
+		}
+		
+		if (wheel.getGroup() != null) {
+			wheel.getGroup().removeWheel(wheel);
+		}
+		
+		mWheels.add(wheel);
+		wheel.setGroup(this, ratio, mInertiaScheduler, mDeliveryScheduler);
+	}
+	
+	/**
+	 * ホイールをグループから外す
+	 * @param wheel	グループから外すホイール
+	 */
+	public void removeWheel(HorizontalWheel wheel) {
+		if (mWheels.remove(wheel)) {
+			wheel.setGroup(null, 1.0, FrameScheduler.CHOREOGRAPHER, FrameScheduler.CHOREOGRAPHER);
+		}
+	}
+	
+	/**
+	 * グループの値が変わったことを捕捉するためのリスナをセットする
+	 * @param listener	グループの値が変わったことを捕捉するためのリスナ
+	 */
+	@SuppressWarnings("unused")
+	public void setListener(OnGroupChangeListener listener) {
+		mListener = listener;
+	}
+	
+	/**
+	 * 比率1のホイールに換算した回転角を得る
+	 * @return	比率1のホイールに換算した回転角(rad)
+	 */
+	@SuppressWarnings("unused")
+	public double getRadian() {
+		return mValue;
+	}
+	
+	/**
+	 * グループ内のすべてのホイールの慣性回転を中止する
+	 */
+	public void cancelInertiaScroll() {
+		for (int i = 0 ; i < mWheels.size() ; i++) {
+			mWheels.get(i).cancelInertiaScroll();
+		}
+	}
+	
+	/**
+	 * グループ内のホイールが回転したときに呼ばれる。他のホイールを比率に従って回転させる
+	 * @param source		回転したホイール
+	 * @param ratio			回転したホイールの比率
+	 * @param deltaRadian	回転量(rad)
+	 */
+	void onMemberRotate(HorizontalWheel source, double ratio, double deltaRadian) {
+		if (mIsPropagating) {
+			return;
+		}
+		
+		double delta = deltaRadian / ratio;
+		mValue += delta;
+		
+		mIsPropagating = true;
+		for (int i = 0 ; i < mWheels.size() ; i++) {
+			HorizontalWheel wheel = mWheels.get(i);
+			if (wheel != source) {
+				wheel.rotateBy(delta * wheel.getGroupRatio());
+			}
+		}
+		mIsPropagating = false;
+		
+		mIsValueChanged = true;
+		requestFrame();
+	}
+	
+	/**
+	 * グループ内のホイールが慣性回転を始めたときに呼ばれる。他のホイールの慣性回転は中止する
+	 * @param source	慣性回転を始めたホイール
+	 */
+	void onMemberInertiaStart(HorizontalWheel source) {
+		for (int i = 0 ; i < mWheels.size() ; i++) {
+			HorizontalWheel wheel = mWheels.get(i);
+			if (wheel != source) {
+				wheel.cancelInertiaScroll();
+			}
+		}
+	}
+	
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		mIsFramePosted = false;
+		
+		// 慣性回転を進める。回転は連動するホイールにもその場で伝わり、再描画が要求される
+		mInertiaScheduler.run(frameTimeNanos);
+		
+		// 各ホイールのリスナへの通知
+		mDeliveryScheduler.run(frameTimeNanos);
+		
+		if (mIsValueChanged) {
+			mIsValueChanged = false;
+			
+			if (mListener != null) {
+				mListener.onGroupChange(Math.toDegrees(mValue));
+			}
+		}
+	}
+	
+	private void requestFrame() {
+		if (!mIsFramePosted) {
+			mIsFramePosted = true;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package jp.onetake.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * HorizontalWheelの目盛り線の座標を計算するためのキャッシュ<br />
+ * 目盛りの基準角に対するsin/cosのテーブルをサイズや目盛り数が変わったときだけ作り直し、
+ * 描画時は加法定理で現在の回転分をずらすだけにすることで、onDrawで三角関数の計算やメモリ確保を行わないようにする
+ */
+class WheelScaleGeometry {
+	private double[] mBaseRadians;	// 各目盛りの基準角(回転量0のとき)
+	private double[] mBaseSins;		// 基準角のsin
+	private double[] mBaseCoses;	// 基準角のcos
+	private float[] mPoints;		// drawLinesに渡す目盛り線の端点(x0, y0, x1, y1の繰り返し)
+	private int mLineCount;			// 直近のfillで埋めた目盛り線の数
+	
+	private float mWidth;
+	private float mHeight;
+	private double mIntervalRadian;
+	private boolean mIsDirty;
+	
+	private double mOffsetRadian;	// 目盛り間隔未満の回転量
+	private double mOffsetSin;
+	private double mOffsetCos;
+	private long mBaseTick;			// 回転量を求めたときに差し引いた目盛りの数
+	
+	WheelScaleGeometry() {
+		mIsDirty = true;
+		mOffsetRadian = 0.0;
+		mOffsetSin = 0.0;
+		mOffsetCos = 1.0;
+	}
+	
+	/**
+	 * 次回の描画前にテーブルを作り直すようにする
+	 */
+	void invalidate() {
+		mIsDirty = true;
+	}
+	
+	/**
+	 * 描画に使うサイズと目盛り間の角度をセットする。値が変わった場合のみテーブルを作り直す
+	 * @param width				Viewの幅
+	 * @param height			Viewの高さ
+	 * @param intervalRadian	目盛り間の角度(rad)
+	 */
+	void update(float width, float height, double intervalRadian) {
+		if (!mIsDirty && mWidth == width && mHeight == height && mIntervalRadian == intervalRadian) {
+			return;
+		}
+		
+		mWidth = width;
+		mHeight = height;
+		mIntervalRadian = intervalRadian;
+		
+		// 回転量は[0, mIntervalRadian)の範囲でsetOffsetから渡され、fillは基準角をその分ずらすだけなので、
+		// テーブルは-π/2からπ/2までの目盛りの分(丸め誤差で1本増える分の余裕を含む)だけ用意すればいい
+		int count = (int)Math.floor(Math.PI / intervalRadian) + 2;
+		if (mBaseRadians == null || mBaseRadians.length != count) {
+			mBaseRadians = new double[count];
+			mBaseSins = new double[count];
+			mBaseCoses = new double[count];
+			mPoints = new float[count * 4];
+		}
+		
+		for (int i = 0 ; i < count ; i++) {
+			double radian = (Math.PI * -1 / 2.0) + intervalRadian * i;
+			mBaseRadians[i] = radian;
+			mBaseSins[i] = Math.sin(radian);
+			mBaseCoses[i] = Math.cos(radian);
+		}
+		
+		mIsDirty = false;
+	}
+	
+	/**
+	 * ホイールの回転量をセットする
+	 * @param offsetRadian	目盛り間隔未満の回転量(rad)。[0, 目盛り間の角度)の範囲
+	 * @param baseTick		現在の角度のうち目盛り間の角度で割り切れる部分(目盛りの数)
+	 */
+	void setOffset(double offsetRadian, long baseTick) {
+		mBaseTick = baseTick;
+		
+		if (mOffsetRadian != offsetRadian) {
+			mOffsetRadian = offsetRadian;
+			mOffsetSin = Math.sin(offsetRadian);
+			mOffsetCos = Math.cos(offsetRadian);
+		}
+	}
+	
+	double getOffsetRadian() {
+		return mOffsetRadian;
+	}
+	
+	double getOffsetSin() {
+		return mOffsetSin;
+	}
+	
+	double getOffsetCos() {
+		return mOffsetCos;
+	}
+	
+	/**
+	 * 現在の回転量に応じた目盛り線の端点を計算する。三角関数は使わない
+	 * @param stride	何本おきに目盛りを描くか。1ならすべて描く<br />
+	 *                  間引く目盛りはホイール上の位置で決まるので、回転しても同じ目盛りが残る
+	 */
+	void fill(int stride) {
+		float halfWidth = mWidth / 2.0f;
+		float verticalMargin = mHeight * 0.1f;
+		
+		int lines = 0;
+		for (int i = 0 ; i < mBaseRadians.length ; i++) {
+			if (mBaseRadians[i] + mOffsetRadian > Math.PI / 2.0) {
+				break;
+			}
+			if (stride > 1 && floorMod(i - mBaseTick, stride) != 0) {
+				continue;
+			}
+			
+			// sin(a + b) = sin(a)cos(b) + cos(a)sin(b)
+			double sin = mBaseSins[i] * mOffsetCos + mBaseCoses[i] * mOffsetSin;
+			float sx = (float)(halfWidth * sin) + halfWidth;
+			if (sx > mWidth) {
+				break;
+			}
+			
+			float sh = (float)(mHeight * (1.0 - Math.abs(sin) * 0.1)) - (verticalMargin + 2.0f);
+			float sy = (mHeight - sh) / 2.0f;
+			
+			int index = lines * 4;
+			mPoints[index] = sx;
+			mPoints[index + 1] = sy;
+			mPoints[index + 2] = sx;
+			mPoints[index + 3] = sy + sh;
+			lines++;
+		}
+		
+		mLineCount = lines;
+	}
+	
+	/**
+	 * fillで計算した目盛り線をまとめて描画する
+	 * @param canvas	描画先
+	 * @param paint		目盛りのPaint
+	 */
+	void draw(Canvas canvas, Paint paint) {
+		if (mLineCount > 0) {
+			canvas.drawLines(mPoints, 0, mLineCount * 4, paint);
+		}
+	}
+	
+	private static long floorMod(long x, int y) {
+		long mod = x % y;
+		return (mod < 0) ? mod + y : mod;
+	}
+}
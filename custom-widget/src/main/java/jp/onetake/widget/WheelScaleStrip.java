@@ -0,0 +1,157 @@
+package jp.onetake.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * HorizontalWheelの目盛りを一度だけラスタライズしておくための帯状のビットマップ<br />
+ * 目盛りを等間隔に並べた平らな帯を作っておき、描画時はdrawBitmapMeshで帯をsinカーブに沿って歪ませるだけにする。
+ * 帯を作り直すのは目盛りのPaint、サイズ、目盛り間の角度のいずれかが変わったときだけ
+ */
+class WheelScaleStrip {
+	// 帯を横方向に分割するメッシュの数。多いほど歪みが滑らかになる
+	private static final int MESH_COLUMNS	= 64;
+	
+	private Bitmap mBitmap;			// 目盛りを描き込んだ帯
+	private Paint mBitmapPaint;		// 帯を描画するためのPaint
+	private float[] mVertices;		// drawBitmapMeshに渡すメッシュの頂点(上端の行、下端の行の順)
+	private double[] mBaseRadians;	// 各メッシュ列の基準角(回転量0のとき)
+	private double[] mBaseSins;		// 基準角のsin
+	private double[] mBaseCoses;	// 基準角のcos
+	
+	private int mWidth;
+	private int mHeight;
+	private double mIntervalRadian;
+	private boolean mIsDirty;
+	
+	WheelScaleStrip() {
+		mBitmapPaint = new Paint();
+		mBitmapPaint.setFilterBitmap(true);
+		mBitmapPaint.setAntiAlias(true);
+		
+		mVertices = new float[(MESH_COLUMNS + 1) * 2 * 2];
+		mBaseRadians = new double[MESH_COLUMNS + 1];
+		mBaseSins = new double[MESH_COLUMNS + 1];
+		mBaseCoses = new double[MESH_COLUMNS + 1];
+		
+		mIsDirty = true;
+	}
+	
+	/**
+	 * 次回の描画前に帯を作り直すようにする
+	 */
+	void invalidate() {
+		mIsDirty = true;
+	}
+	
+	/**
+	 * 帯のビットマップを破棄する
+	 */
+	void release() {
+		if (mBitmap != null) {
+			mBitmap.recycle();
+			mBitmap = null;
+		}
+		
+		mIsDirty = true;
+	}
+	
+	/**
+	 * 描画に使うサイズと目盛りをセットする。いずれかが変わった場合のみ帯を作り直す
+	 * @param width				Viewの幅
+	 * @param height			Viewの高さ
+	 * @param intervalRadian	目盛り間の角度(rad)
+	 * @param scalePaint		目盛りのPaint
+	 */
+	void update(int width, int height, double intervalRadian, Paint scalePaint) {
+		if (!mIsDirty && mWidth == width && mHeight == height && mIntervalRadian == intervalRadian) {
+			return;
+		}
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		
+		mWidth = width;
+		mHeight = height;
+		mIntervalRadian = intervalRadian;
+		
+		// 帯は-π/2の1目盛り手前からπ/2までの範囲をカバーする
+		// 画面中央(sinの傾きが最大)で等倍になるよう、角度1radあたりwidth/2ピクセルで描く
+		double range = Math.PI + intervalRadian;
+		double pixelsPerRadian = width / 2.0;
+		int stripWidth = (int)Math.ceil(range * pixelsPerRadian);
+		
+		if (mBitmap == null || mBitmap.getWidth() != stripWidth || mBitmap.getHeight() != height) {
+			if (mBitmap != null) {
+				mBitmap.recycle();
+			}
+			mBitmap = Bitmap.createBitmap(stripWidth, height, Bitmap.Config.ARGB_8888);
+		} else {
+			mBitmap.eraseColor(0);
+		}
+		
+		Canvas canvas = new Canvas(mBitmap);
+		double radian = 0.0;
+		while (radian <= range) {
+			float x = (float)(radian * pixelsPerRadian);
+			canvas.drawLine(x, 0.0f, x, height, scalePaint);
+			
+			radian += intervalRadian;
+		}
+		
+		for (int i = 0 ; i <= MESH_COLUMNS ; i++) {
+			double base = (Math.PI * -1 / 2.0) - intervalRadian + range * i / MESH_COLUMNS;
+			mBaseRadians[i] = base;
+			mBaseSins[i] = Math.sin(base);
+			mBaseCoses[i] = Math.cos(base);
+		}
+		
+		mIsDirty = false;
+	}
+	
+	/**
+	 * 帯を現在の回転量に合わせて歪ませて描画する。三角関数は使わない
+	 * @param canvas		描画先
+	 * @param geometry		回転量のsin/cosを保持している目盛りの座標キャッシュ
+	 */
+	void draw(Canvas canvas, WheelScaleGeometry geometry) {
+		if (mBitmap == null || mIsDirty) {
+			return;
+		}
+		
+		// 回転量はいつも[0, mIntervalRadian)の範囲にある
+		double offset = geometry.getOffsetRadian();
+		double offsetSin = geometry.getOffsetSin();
+		double offsetCos = geometry.getOffsetCos();
+		
+		float halfWidth = mWidth / 2.0f;
+		float verticalMargin = mHeight * 0.1f;
+		int bottomRow = (MESH_COLUMNS + 1) * 2;
+		
+		for (int i = 0 ; i <= MESH_COLUMNS ; i++) {
+			double radian = mBaseRadians[i] + offset;
+			
+			// ±π/2の外側は端に潰して、折り返して描かれないようにする
+			double sin;
+			if (radian <= Math.PI * -1 / 2.0) {
+				sin = -1.0;
+			} else if (radian >= Math.PI / 2.0) {
+				sin = 1.0;
+			} else {
+				sin = mBaseSins[i] * offsetCos + mBaseCoses[i] * offsetSin;
+			}
+			
+			float sx = (float)(halfWidth * sin) + halfWidth;
+			float sh = (float)(mHeight * (1.0 - Math.abs(sin) * 0.1)) - (verticalMargin + 2.0f);
+			float sy = (mHeight - sh) / 2.0f;
+			
+			mVertices[i * 2] = sx;
+			mVertices[i * 2 + 1] = sy;
+			mVertices[bottomRow + i * 2] = sx;
+			mVertices[bottomRow + i * 2 + 1] = sy + sh;
+		}
+		
+		canvas.drawBitmapMesh(mBitmap, MESH_COLUMNS, 1, mVertices, 0, null, 0, mBitmapPaint);
+	}
+}
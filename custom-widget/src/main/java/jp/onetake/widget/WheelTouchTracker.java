@@ -0,0 +1,210 @@
+package jp.onetake.widget;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+/**
+ * ホイールに発生したタッチイベントを処理して、ドラッグとフリックに変換するためのクラス<br />
+ * MotionEventにまとめて入っている過去の座標(getHistoricalX)もすべて速度の推定に使い、回転はイベント1つにつき1回だけ行う。
+ * 速度の推定に使うバッファは使い回すので、タッチイベントの処理中にメモリ確保を行わない
+ */
+class WheelTouchTracker {
+	/**
+	 * 直近の座標から最小二乗法で速度を推定するためのクラス
+	 */
+	private static class VelocityEstimator {
+		// 保持するサンプルの数
+		private static final int HISTORY_SIZE			= 20;
+		// これより古いサンプルは速度の推定に使わない(msec)
+		private static final long HORIZON_MILLIS		= 100L;
+		// サンプルの間隔がこれ以上空いていたら、そこで指が止まっていたとみなす(msec)
+		private static final long STOPPED_MILLIS		= 40L;
+		
+		private final long[] mTimes = new long[HISTORY_SIZE];
+		private final float[] mPositions = new float[HISTORY_SIZE];
+		private int mIndex;		// 最新のサンプルの位置
+		private int mCount;		// 保持しているサンプルの数
+		
+		void clear() {
+			mIndex = 0;
+			mCount = 0;
+		}
+		
+		void add(long timeMillis, float x) {
+			mIndex = (mIndex + 1) % HISTORY_SIZE;
+			mTimes[mIndex] = timeMillis;
+			mPositions[mIndex] = x;
+			if (mCount < HISTORY_SIZE) {
+				mCount++;
+			}
+		}
+		
+		/**
+		 * 速度を推定する
+		 * @return	速度(px/sec)
+		 */
+		double getVelocity() {
+			if (mCount == 0) {
+				return 0.0;
+			}
+			
+			long newest = mTimes[mIndex];
+			long previous = newest;
+			
+			// x = a + b * t の傾きbを最小二乗法で求める。tは最新のサンプルからの経過時間(sec)
+			double sumT = 0.0, sumX = 0.0, sumTT = 0.0, sumTX = 0.0;
+			int n = 0;
+			for (int i = 0 ; i < mCount ; i++) {
+				int index = (mIndex - i + HISTORY_SIZE) % HISTORY_SIZE;
+				long time = mTimes[index];
+				if (newest - time > HORIZON_MILLIS || previous - time > STOPPED_MILLIS) {
+					break;
+				}
+				previous = time;
+				
+				double t = (time - newest) / 1000.0;
+				double x = mPositions[index];
+				sumT += t;
+				sumX += x;
+				sumTT += t * t;
+				sumTX += t * x;
+				n++;
+			}
+			
+			double denominator = n * sumTT - sumT * sumT;
+			if (n < 2 || denominator == 0.0) {
+				return 0.0;
+			}
+			return (n * sumTX - sumT * sumX) / denominator;
+		}
+	}
+	
+	// 指の移動量(px)をホイールの回転量(rad)に変換する比率
+	private static final double DRAGGING_ADJUST_RATIO	= 0.002;
+	
+	private HorizontalWheel mHorizontalWheel;
+	private VelocityEstimator mVelocityEstimator;
+	private int mTouchSlop;
+	private int mMinimumFlingVelocity;
+	private int mMaximumFlingVelocity;
+	
+	private int mActivePointerId;
+	private float mDownX;
+	private float mLastX;
+	private boolean mIsDragging;
+	
+	WheelTouchTracker(Context context, HorizontalWheel horizontalWheel) {
+		mHorizontalWheel = horizontalWheel;
+		mVelocityEstimator = new VelocityEstimator();
+		
+		ViewConfiguration configuration = ViewConfiguration.get(context);
+		mTouchSlop = configuration.getScaledTouchSlop();
+		mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+		mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+	}
+	
+	void onTouchEvent(MotionEvent event) {
+		switch (event.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				onDown(event);
+				break;
+			case MotionEvent.ACTION_MOVE:
+				onMove(event);
+				break;
+			case MotionEvent.ACTION_POINTER_UP:
+				onPointerUp(event);
+				break;
+			case MotionEvent.ACTION_UP:
+				onUp(event);
+				break;
+			case MotionEvent.ACTION_CANCEL:
+				if (mIsDragging) {
+					mIsDragging = false;
+					mHorizontalWheel.setState(HorizontalWheel.State.Idle);
+				}
+				break;
+		}
+	}
+	
+	private void onDown(MotionEvent event) {
+		if (mHorizontalWheel.getState() == HorizontalWheel.State.Inertia) {
+			mHorizontalWheel.cancelInertiaScroll();
+			mHorizontalWheel.setState(HorizontalWheel.State.Idle);
+		}
+		
+		mActivePointerId = event.getPointerId(0);
+		mDownX = event.getX();
+		mLastX = mDownX;
+		mIsDragging = false;
+		
+		mVelocityEstimator.clear();
+		mVelocityEstimator.add(event.getEventTime(), mDownX);
+	}
+	
+	private void onMove(MotionEvent event) {
+		int pointerIndex = event.findPointerIndex(mActivePointerId);
+		if (pointerIndex < 0) {
+			return;
+		}
+		
+		// 前回のイベントから今回までの間の座標もまとめて入っているので、すべて速度の推定に使う
+		int historySize = event.getHistorySize();
+		for (int i = 0 ; i < historySize ; i++) {
+			mVelocityEstimator.add(event.getHistoricalEventTime(i), event.getHistoricalX(pointerIndex, i));
+		}
+		
+		float x = event.getX(pointerIndex);
+		mVelocityEstimator.add(event.getEventTime(), x);
+		
+		if (!mIsDragging) {
+			if (Math.abs(x - mDownX) <= mTouchSlop) {
+				return;
+			}
+			
+			mIsDragging = true;
+			mHorizontalWheel.setState(HorizontalWheel.State.Dragging);
+		}
+		
+		// 回転はイベントごとに1回だけ。途中の座標を1つずつ反映しても、最終的な角度は同じなので
+		float deltaX = x - mLastX;
+		mLastX = x;
+		if (deltaX != 0.0f) {
+			mHorizontalWheel.rotateBy(deltaX * DRAGGING_ADJUST_RATIO);
+		}
+	}
+	
+	private void onPointerUp(MotionEvent event) {
+		// ドラッグしていた指が離れたら、残っている指に引き継ぐ
+		int pointerIndex = event.getActionIndex();
+		if (event.getPointerId(pointerIndex) == mActivePointerId) {
+			int newIndex = (pointerIndex == 0) ? 1 : 0;
+			mActivePointerId = event.getPointerId(newIndex);
+			mLastX = event.getX(newIndex);
+			mDownX = mLastX;
+			mVelocityEstimator.clear();
+		}
+	}
+	
+	private void onUp(MotionEvent event) {
+		if (!mIsDragging) {
+			return;
+		}
+		mIsDragging = false;
+		
+		int pointerIndex = event.findPointerIndex(mActivePointerId);
+		if (pointerIndex >= 0) {
+			mVelocityEstimator.add(event.getEventTime(), event.getX(pointerIndex));
+		}
+		
+		double velocity = mVelocityEstimator.getVelocity();
+		velocity = Math.max(-mMaximumFlingVelocity, Math.min(mMaximumFlingVelocity, velocity));
+		
+		if (Math.abs(velocity) > mMinimumFlingVelocity) {
+			// ドラッグと同じ比率で、指の速度(px/sec)をホイールの角速度(rad/sec)に変換する
+			mHorizontalWheel.fling(velocity * DRAGGING_ADJUST_RATIO);
+		} else {
+			mHorizontalWheel.setState(HorizontalWheel.State.Idle);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package jp.onetake.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PickerItemOffsetsTest {
+	private PickerItemOffsets mOffsets;
+	
+	@Before
+	public void setUp() {
+		mOffsets = new PickerItemOffsets();
+	}
+	
+	/**
+	 * 末尾に項目を差し込み、順に幅をセットする
+	 */
+	private void append(int... widths) {
+		int start = mOffsets.size();
+		mOffsets.insert(start, widths.length);
+		for (int i = 0 ; i < widths.length ; i++) {
+			mOffsets.setWidth(start + i, widths[i]);
+		}
+	}
+	
+	/**
+	 * 各項目のオフセットが、幅を先頭から足し合わせた値と一致するかを確かめる
+	 */
+	private void assertOffsets(int... widths) {
+		assertEquals(widths.length, mOffsets.size());
+		
+		int offset = 0;
+		for (int i = 0 ; i < widths.length ; i++) {
+			assertEquals(widths[i], mOffsets.getWidth(i));
+			assertEquals(offset, mOffsets.getOffset(i));
+			offset += widths[i];
+		}
+		assertEquals(offset, mOffsets.getOffset(widths.length));
+		assertEquals(offset, mOffsets.getTotalWidth());
+	}
+	
+	@Test
+	public void empty() {
+		assertEquals(0, mOffsets.size());
+		assertEquals(0, mOffsets.getTotalWidth());
+		assertEquals(-1, mOffsets.findPosition(0));
+	}
+	
+	@Test
+	public void prefixSums() {
+		append(10, 20, 30, 40, 50, 60, 70);
+		
+		assertOffsets(10, 20, 30, 40, 50, 60, 70);
+	}
+	
+	@Test
+	public void setWidth() {
+		append(10, 20, 30, 40, 50);
+		
+		mOffsets.setWidth(2, 5);
+		mOffsets.setWidth(0, 100);
+		mOffsets.setWidth(4, 0);
+		
+		assertOffsets(100, 20, 5, 40, 0);
+	}
+	
+	@Test
+	public void insertKeepsWidths() {
+		append(10, 20, 30);
+		
+		mOffsets.insert(1, 2);
+		assertOffsets(10, 0, 0, 20, 30);
+		
+		mOffsets.setWidth(1, 1);
+		mOffsets.setWidth(2, 2);
+		assertOffsets(10, 1, 2, 20, 30);
+		
+		mOffsets.insert(0, 1);
+		mOffsets.insert(mOffsets.size(), 1);
+		assertOffsets(0, 10, 1, 2, 20, 30, 0);
+	}
+	
+	@Test
+	public void insertGrowsCapacity() {
+		int[] widths = new int[100];
+		for (int i = 0 ; i < widths.length ; i++) {
+			widths[i] = i + 1;
+		}
+		
+		for (int i = 0 ; i < widths.length ; i++) {
+			append(widths[i]);
+		}
+		assertOffsets(widths);
+	}
+	
+	@Test
+	public void remove() {
+		append(10, 20, 30, 40, 50);
+		
+		mOffsets.remove(1, 2);
+		assertOffsets(10, 40, 50);
+		
+		mOffsets.remove(2, 1);
+		assertOffsets(10, 40);
+		
+		mOffsets.remove(0, 2);
+		assertOffsets();
+		assertEquals(-1, mOffsets.findPosition(0));
+	}
+	
+	@Test
+	public void clear() {
+		append(10, 20, 30);
+		
+		mOffsets.clear();
+		assertOffsets();
+		
+		append(5);
+		assertOffsets(5);
+	}
+	
+	@Test
+	public void findPosition() {
+		append(10, 20, 30, 40);
+		
+		assertEquals(0, mOffsets.findPosition(0));
+		assertEquals(0, mOffsets.findPosition(9));
+		assertEquals(1, mOffsets.findPosition(10));
+		assertEquals(1, mOffsets.findPosition(29));
+		assertEquals(2, mOffsets.findPosition(30));
+		assertEquals(2, mOffsets.findPosition(59));
+		assertEquals(3, mOffsets.findPosition(60));
+		assertEquals(3, mOffsets.findPosition(99));
+	}
+	
+	@Test
+	public void findPositionOutOfRange() {
+		append(10, 20, 30);
+		
+		assertEquals(0, mOffsets.findPosition(-1));
+		assertEquals(0, mOffsets.findPosition(Integer.MIN_VALUE));
+		assertEquals(2, mOffsets.findPosition(60));
+		assertEquals(2, mOffsets.findPosition(Integer.MAX_VALUE));
+	}
+	
+	@Test
+	public void findPositionSkipsZeroWidths() {
+		append(10, 0, 0, 20, 0);
+		
+		// 幅0の項目には止まらず、その地点から始まる幅のある項目を返す
+		assertEquals(0, mOffsets.findPosition(9));
+		assertEquals(3, mOffsets.findPosition(10));
+		assertEquals(3, mOffsets.findPosition(29));
+		assertEquals(4, mOffsets.findPosition(30));
+	}
+	
+	@Test
+	public void findPositionMatchesLinearSearch() {
+		int[] widths = new int[37];
+		for (int i = 0 ; i < widths.length ; i++) {
+			widths[i] = (i * 7) % 5 * 3;
+		}
+		append(widths);
+		
+		int total = mOffsets.getTotalWidth();
+		for (int x = 0 ; x < total ; x++) {
+			// xより左端が手前にある最後の項目
+			int expected = 0;
+			int offset = 0;
+			for (int i = 0 ; i < widths.length ; i++) {
+				if (offset <= x) {
+					expected = i;
+				}
+				offset += widths[i];
+			}
+			
+			assertEquals("x=" + x, expected, mOffsets.findPosition(x));
+		}
+	}
+}